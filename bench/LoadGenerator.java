@@ -0,0 +1,230 @@
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Closed-loop load generator for the gateway, run as a single source file: {@code java bench/LoadGenerator.java}.
+ * <pre>
+ * seed &lt;url&gt; &lt;users&gt;                                 users with an item each and bookings of each other's items
+ * run &lt;url&gt; &lt;users&gt; &lt;mix&gt; &lt;concurrency&gt; &lt;seconds&gt; &lt;warmup seconds&gt; [gzip]
+ * </pre>
+ * Mixes: bookings - read-heavy booking mix (booker and owner lists, booking and item by id, 5% new bookings),
+ * owner-list - owner booking list of 100 bookings only. Prints one line of throughput, latency percentiles,
+ * response bytes and errors by status.
+ */
+public class LoadGenerator {
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+    private static final HttpClient CLIENT = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_1_1)
+            .connectTimeout(Duration.ofSeconds(5))
+            .build();
+
+    public static void main(String[] args) throws Exception {
+        String url = args[1];
+        int users = Integer.parseInt(args[2]);
+        if ("seed".equals(args[0])) {
+            seed(url, users);
+        } else {
+            run(url, users, args[3], Integer.parseInt(args[4]), Integer.parseInt(args[5]),
+                    Integer.parseInt(args[6]), args.length > 7 && "gzip".equals(args[7]));
+        }
+    }
+
+    private static void seed(String url, int users) throws IOException, InterruptedException {
+        for (int i = 1; i <= users; i++) {
+            send(url, "POST", "/users", 0, "{\"name\":\"user" + i + "\",\"email\":\"user" + i + "@bench.com\"}");
+        }
+        for (int i = 1; i <= users; i++) {
+            send(url, "POST", "/items", i, "{\"name\":\"item" + i + "\",\"description\":\"bench item " + i
+                    + "\",\"available\":true}");
+        }
+        // every user books the items of ten other users, each owner ends up with ten incoming bookings
+        for (int i = 1; i <= users; i++) {
+            for (int k = 1; k <= 10; k++) {
+                send(url, "POST", "/bookings", i, booking(1 + (i + k - 1) % users, k));
+            }
+        }
+        System.out.println("seeded " + users + " users, " + users + " items, " + users * 10 + " bookings");
+    }
+
+    private static void run(String url, int users, String mix, int concurrency, int seconds, int warmup,
+                            boolean gzip) throws InterruptedException {
+        AtomicBoolean measuring = new AtomicBoolean();
+        AtomicBoolean stopped = new AtomicBoolean();
+        Worker[] workers = new Worker[concurrency];
+        Thread[] threads = new Thread[concurrency];
+        for (int i = 0; i < concurrency; i++) {
+            workers[i] = new Worker(url, users, mix, gzip, measuring, stopped);
+            threads[i] = new Thread(workers[i], "load-" + i);
+            threads[i].start();
+        }
+        Thread.sleep(warmup * 1000L);
+        measuring.set(true);
+        long start = System.nanoTime();
+        Thread.sleep(seconds * 1000L);
+        measuring.set(false);
+        long elapsed = System.nanoTime() - start;
+        stopped.set(true);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        long[] latencies = new long[0];
+        long bytes = 0;
+        Map<String, Integer> errors = new TreeMap<>();
+        for (Worker worker : workers) {
+            int from = latencies.length;
+            latencies = Arrays.copyOf(latencies, from + worker.count);
+            System.arraycopy(worker.latencies, 0, latencies, from, worker.count);
+            bytes += worker.bytes;
+            worker.errors.forEach((status, count) -> errors.merge(status, count, Integer::sum));
+        }
+        Arrays.sort(latencies);
+        int requests = latencies.length;
+        System.out.printf("mix=%s concurrency=%d requests=%d throughput=%.0f/s p50=%.1fms p99=%.1fms "
+                        + "p99.9=%.1fms max=%.1fms bytes/request=%d errors=%s%n",
+                mix, concurrency, requests, requests / (elapsed / 1e9),
+                percentile(latencies, 0.5), percentile(latencies, 0.99), percentile(latencies, 0.999),
+                percentile(latencies, 1.0), requests == 0 ? 0 : bytes / requests, errors);
+    }
+
+    private static double percentile(long[] sorted, double percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int index = (int) Math.ceil(percentile * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+
+    private static String booking(long itemId, int daysAhead) {
+        LocalDateTime start = LocalDateTime.now().plusDays(daysAhead).truncatedTo(ChronoUnit.SECONDS);
+        return "{\"itemId\":" + itemId + ",\"start\":\"" + DATE_TIME.format(start) + "\",\"end\":\""
+                + DATE_TIME.format(start.plusHours(1)) + "\"}";
+    }
+
+    private static HttpResponse<byte[]> send(String url, String method, String path, long userId, String body)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url + path))
+                .timeout(Duration.ofSeconds(10))
+                .header("Content-Type", "application/json");
+        if (userId > 0) {
+            request.header("X-Sharer-User-Id", String.valueOf(userId));
+        }
+        request.method(method, body == null
+                ? HttpRequest.BodyPublishers.noBody()
+                : HttpRequest.BodyPublishers.ofString(body));
+        HttpResponse<byte[]> response = CLIENT.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() >= 400 && body != null) {
+            throw new IllegalStateException(method + " " + path + " answered " + response.statusCode() + ": "
+                    + new String(response.body()));
+        }
+        return response;
+    }
+
+    private static final class Worker implements Runnable {
+        private final String url;
+        private final int users;
+        private final String mix;
+        private final boolean gzip;
+        private final AtomicBoolean measuring;
+        private final AtomicBoolean stopped;
+        private final Map<String, Integer> errors = new TreeMap<>();
+        private long[] latencies = new long[1024];
+        private int count;
+        private long bytes;
+
+        private Worker(String url, int users, String mix, boolean gzip, AtomicBoolean measuring,
+                       AtomicBoolean stopped) {
+            this.url = url;
+            this.users = users;
+            this.mix = mix;
+            this.gzip = gzip;
+            this.measuring = measuring;
+            this.stopped = stopped;
+        }
+
+        @Override
+        public void run() {
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            while (!stopped.get()) {
+                HttpRequest request = nextRequest(random);
+                long start = System.nanoTime();
+                String error = null;
+                long received = 0;
+                try {
+                    HttpResponse<byte[]> response = CLIENT.send(request, HttpResponse.BodyHandlers.ofByteArray());
+                    received = response.body().length;
+                    if (response.statusCode() >= 400) {
+                        error = String.valueOf(response.statusCode());
+                    }
+                } catch (IOException e) {
+                    error = e.getClass().getSimpleName();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                long latency = System.nanoTime() - start;
+                if (!measuring.get()) {
+                    continue;
+                }
+                if (error != null) {
+                    errors.merge(error, 1, Integer::sum);
+                    continue;
+                }
+                if (count == latencies.length) {
+                    latencies = Arrays.copyOf(latencies, count * 2);
+                }
+                latencies[count++] = latency;
+                bytes += received;
+            }
+        }
+
+        private HttpRequest nextRequest(ThreadLocalRandom random) {
+            long userId = 1 + random.nextInt(users);
+            String method = "GET";
+            String body = null;
+            String path;
+            if ("owner-list".equals(mix)) {
+                path = "/bookings/owner?from=0&size=100";
+            } else {
+                int choice = random.nextInt(100);
+                if (choice < 30) {
+                    path = "/bookings?from=0&size=10";
+                } else if (choice < 55) {
+                    path = "/bookings/owner?from=0&size=10";
+                } else if (choice < 75) {
+                    path = "/items/" + (1 + random.nextInt(users));
+                } else if (choice < 95) {
+                    // bookings of the seeded users are numbered by booker, ten each
+                    path = "/bookings/" + ((userId - 1) * 10 + 1 + random.nextInt(10));
+                } else {
+                    method = "POST";
+                    path = "/bookings";
+                    body = booking(1 + (userId + random.nextInt(users - 1)) % users, 30 + random.nextInt(300));
+                }
+            }
+            HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(url + path))
+                    .timeout(Duration.ofSeconds(10))
+                    .header("X-Sharer-User-Id", String.valueOf(userId));
+            if (gzip) {
+                request.header("Accept-Encoding", "gzip");
+            }
+            if (body != null) {
+                request.header("Content-Type", "application/json")
+                        .POST(HttpRequest.BodyPublishers.ofString(body));
+            }
+            return request.build();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+#!/usr/bin/env bash
+# Load benchmark through the gateway with the server on in-memory H2.
+#   bench/run.sh gateway  gateway to server protocol (HTTP/1.1, h2c) with and without gzip, owner booking list
+#   bench/run.sh modes    throughput and tail latency of shareit.execution.mode platform/bounded/virtual
+#   bench/run.sh pool     throughput knee and connection acquire time by connection pool size and concurrency
+# SERVER and GATEWAY are the commands starting the applications, by default the jars built by mvn package.
+# Results are printed as markdown tables, application logs are kept in $LOGS.
+set -euo pipefail
+cd "$(dirname "$0")/.."
+
+SERVER=${SERVER:-"java -jar server/target/server-0.0.1-SNAPSHOT.jar"}
+GATEWAY=${GATEWAY:-"java -jar gateway/target/gateway-0.0.1-SNAPSHOT.jar"}
+USERS=${USERS:-100}
+SECONDS_PER_RUN=${SECONDS_PER_RUN:-20}
+WARMUP=${WARMUP:-5}
+LOGS=${LOGS:-/tmp/shareit-bench}
+GATEWAY_URL=http://localhost:8080
+PIDS=()
+
+mkdir -p "$LOGS"
+trap 'stop' EXIT
+
+stop() {
+  for pid in "${PIDS[@]}"; do
+    kill "$pid" 2>/dev/null || true
+    wait "$pid" 2>/dev/null || true
+  done
+  PIDS=()
+}
+
+await() {
+  for _ in $(seq 1 120); do
+    if curl -sf "$1/actuator/health" > /dev/null; then
+      return
+    fi
+    sleep 1
+  done
+  echo "$1 did not start, see $LOGS" >&2
+  exit 1
+}
+
+# start <name> [server arguments...] [-- gateway arguments...]: starts both applications and seeds the data
+start() {
+  local name=$1
+  shift
+  local server_args=()
+  while [ $# -gt 0 ] && [ "$1" != "--" ]; do
+    server_args+=("$1")
+    shift
+  done
+  [ $# -gt 0 ] && shift
+  $SERVER --spring.profiles.active=prod \
+    --spring.datasource.url="jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1" --spring.datasource.driver-class-name=org.h2.Driver \
+    --spring.datasource.username=sa --spring.datasource.password= ${server_args[@]+"${server_args[@]}"} \
+    > "$LOGS/server-$name.log" 2>&1 &
+  PIDS+=($!)
+  await http://localhost:9090
+  $GATEWAY --shareit.rate-limit.enabled=false --logging.level.org.springframework.web.client.RestTemplate=INFO "$@" \
+    > "$LOGS/gateway-$name.log" 2>&1 &
+  PIDS+=($!)
+  await $GATEWAY_URL
+  java bench/LoadGenerator.java seed $GATEWAY_URL "$USERS" > /dev/null
+}
+
+# load <mix> <concurrency> [gzip]
+load() {
+  java bench/LoadGenerator.java run $GATEWAY_URL "$USERS" "$1" "$2" "$SECONDS_PER_RUN" "$WARMUP" ${3:-}
+}
+
+# row <columns>: concurrency, throughput, p50, p99, p99.9, max, bytes per response and errors of a load line
+row() {
+  sed -E 's/.*concurrency=([0-9]+) requests=[0-9]+ throughput=([^ ]+) p50=([^ ]+) p99=([^ ]+) p99.9=([^ ]+) max=([^ ]+) bytes\/request=([0-9]+) errors=(.*)/\1 | \2 | \3 | \4 | \5 | \6 | \7 | \8/'
+}
+
+# metric <name> <statistic>: statistic of a server metric, e.g. metric hikaricp.connections.acquire MAX
+metric() {
+  curl -sf "http://localhost:9090/actuator/metrics/$1" \
+    | sed -E "s/.*\"statistic\":\"$2\",\"value\":([0-9.E-]+).*/\1/"
+}
+
+gateway() {
+  echo "| gateway to server | client encoding | concurrency | throughput | p50 | p99 | p99.9 | max | bytes | errors |"
+  echo "|-------------------|-----------------|-------------|------------|-----|-----|-------|-----|-------|--------|"
+  for protocol in http1 h2c; do
+    start "$protocol" -- --shareit.server.http2.enabled="$([ "$protocol" = h2c ] && echo true || echo false)"
+    for encoding in identity gzip; do
+      for concurrency in 1 20; do
+        echo "| $protocol | $encoding | $(load owner-list "$concurrency" "$encoding" | row) |"
+      done
+    done
+    stop
+  done
+}
+
+modes() {
+  echo "| mode | concurrency | throughput | p50 | p99 | p99.9 | max | errors |"
+  echo "|------|-------------|------------|-----|-----|-------|-----|--------|"
+  for mode in platform bounded virtual; do
+    start "$mode" --shareit.execution.mode="$mode" --shareit.execution.max-concurrency=10
+    local label=$mode
+    if grep -q "Virtual threads are not supported" "$LOGS/server-$mode.log"; then
+      label="virtual (bounded on Java $(java -version 2>&1 | head -1 | cut -d'"' -f2))"
+    fi
+    for concurrency in 10 50 200; do
+      echo "| $label | $(load bookings "$concurrency" | row | cut -d'|' -f1-6,8) |"
+    done
+    stop
+  done
+}
+
+pool() {
+  echo "| pool size | concurrency | throughput | p50 | p99 | p99.9 | max | errors | max acquire | acquire timeouts |"
+  echo "|-----------|-------------|------------|-----|-----|-------|-----|--------|-------------|------------------|"
+  for size in 2 5 10 20 40; do
+    # 50 request threads, so the pool and not max-concurrency limits the requests touching the database
+    start "pool-$size" --shareit.execution.max-concurrency=50 --spring.datasource.hikari.maximum-pool-size="$size" \
+      --spring.datasource.hikari.minimum-idle="$size"
+    for concurrency in 10 50; do
+      local timeouts
+      timeouts=$(metric hikaricp.connections.timeout COUNT)
+      local line
+      line=$(load bookings "$concurrency" | row | cut -d'|' -f1-6,8)
+      local acquire
+      acquire=$(awk -v max="$(metric hikaricp.connections.acquire MAX)" 'BEGIN { printf "%.1fms", max * 1000 }')
+      timeouts=$(awk -v before="$timeouts" -v after="$(metric hikaricp.connections.timeout COUNT)" \
+        'BEGIN { printf "%d", after - before }')
+      echo "| $size | $line | $acquire | $timeouts |"
+    done
+    stop
+  done
+}
+
+case "${1:-}" in
+  gateway) gateway ;;
+  modes) modes ;;
+  pool) pool ;;
+  *) sed -n '2,7p' "$0" >&2; exit 2 ;;
+esac
@@ -3,13 +3,20 @@ package ru.practicum.shareit_gateway.booking;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.stereotype.Service;
+import org.springframework.web.reactive.function.client.WebClient;
 import org.springframework.web.util.DefaultUriBuilderFactory;
+import reactor.core.publisher.Flux;
 import ru.practicum.shareit_gateway.booking.dto.BookItemRequestDto;
 import ru.practicum.shareit_gateway.booking.dto.BookingState;
 import ru.practicum.shareit_gateway.client.BaseClient;
+import ru.practicum.shareit_gateway.client.RequestCoalescer;
+import ru.practicum.shareit_gateway.client.ServerResilience;
 
 import java.util.Map;
 
@@ -17,14 +24,24 @@ import java.util.Map;
 public class BookingClient extends BaseClient {
     private static final String API_PREFIX = "/bookings";
 
+    private final WebClient serverWebClient;
+
     @Autowired
-    public BookingClient(@Value("${shareit.server.url}") String serverUrl, RestTemplateBuilder builder) {
+    public BookingClient(@Value("${shareit.server.url}") String serverUrl,
+                         RestTemplateBuilder builder,
+                         ClientHttpRequestFactory serverRequestFactory,
+                         RequestCoalescer coalescer,
+                         ServerResilience resilience,
+                         WebClient serverWebClient) {
         super(
                 builder
                         .uriTemplateHandler(new DefaultUriBuilderFactory(serverUrl + API_PREFIX))
-                        .requestFactory(HttpComponentsClientHttpRequestFactory::new)
-                        .build()
+                        .requestFactory(() -> serverRequestFactory)
+                        .build(),
+                coalescer,
+                resilience
         );
+        this.serverWebClient = serverWebClient;
     }
 
     public ResponseEntity<Object> addBookingRequest(long userId, BookItemRequestDto requestDto) {
@@ -56,4 +73,31 @@ public class BookingClient extends BaseClient {
     public ResponseEntity<Object> getBookingById(long userId, Long bookingId) {
         return get("/" + bookingId, userId);
     }
-}
\ No newline at end of file
+
+    public ResponseEntity<Object> getBookingSummary(long userId) {
+        return get("/summary", userId);
+    }
+
+    public ResponseEntity<Object> getBookingSummaryByOwner(long userId) {
+        return get("/owner/summary", userId);
+    }
+
+    public Flux<ServerSentEvent<String>> streamBookingsByOwner(long userId) {
+        return serverWebClient.get()
+                .uri(API_PREFIX + "/owner/stream")
+                .header("X-Sharer-User-Id", String.valueOf(userId))
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .retrieve()
+                .bodyToFlux(new ParameterizedTypeReference<ServerSentEvent<String>>() {
+                });
+    }
+
+    public Flux<Object> exportBookings(long userId, String role) {
+        return serverWebClient.get()
+                .uri(API_PREFIX + "/export?role={role}", role)
+                .header("X-Sharer-User-Id", String.valueOf(userId))
+                .accept(MediaType.APPLICATION_NDJSON)
+                .retrieve()
+                .bodyToFlux(Object.class);
+    }
+}
@@ -2,7 +2,9 @@ package ru.practicum.shareit_gateway.booking;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
@@ -13,6 +15,7 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
 import ru.practicum.shareit_gateway.booking.dto.BookItemRequestDto;
 import ru.practicum.shareit_gateway.booking.dto.BookingState;
 import ru.practicum.shareit_gateway.exception.InvalidPathVariableException;
@@ -72,6 +75,31 @@ public class BookingController {
 		return bookingClient.getBookingsByOwnerAndState(userId, state, from, size);
 	}
 
+	@GetMapping("/summary")
+	public ResponseEntity<Object> getBookingSummary(@RequestHeader("X-Sharer-User-Id") long userId) {
+		log.info("Request for get bookings summary by states from user {}", userId);
+		return bookingClient.getBookingSummary(userId);
+	}
+
+	@GetMapping("/owner/summary")
+	public ResponseEntity<Object> getBookingSummaryByOwner(@RequestHeader("X-Sharer-User-Id") long userId) {
+		log.info("Request for get bookings summary by states of user {} items", userId);
+		return bookingClient.getBookingSummaryByOwner(userId);
+	}
+
+	@GetMapping(value = "/owner/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+	public Flux<ServerSentEvent<String>> streamBookingsByOwner(@RequestHeader("X-Sharer-User-Id") long userId) {
+		log.info("Request for stream of new bookings of user {} items", userId);
+		return bookingClient.streamBookingsByOwner(userId);
+	}
+
+	@GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+	public Flux<Object> exportBookings(@RequestHeader("X-Sharer-User-Id") long userId,
+									   @RequestParam(defaultValue = "BOOKER") String role) {
+		log.info("Request for export of bookings of user {} as {}", userId, role);
+		return bookingClient.exportBookings(userId, role);
+	}
+
 
 	@GetMapping("/{bookingId}")
 	public ResponseEntity<Object> getBooking(@RequestHeader("X-Sharer-User-Id") long userId,
@@ -8,15 +8,44 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.lang.Nullable;
 import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestTemplate;
-
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.util.WebUtils;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import java.net.URI;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
 
 public class BaseClient {
+    private static final Pattern ID_SEGMENT = Pattern.compile("/\\d+");
+    /**
+     * Set by the server on writes; the client sends it back so that its next reads skip the lagging replica.
+     */
+    private static final String LAST_WRITE_COOKIE = "shareit-last-write";
+    private static final String GZIP = "gzip";
+    /**
+     * Hop-by-hop headers of the server connection, the gateway's own connection to the client sets them itself.
+     */
+    private static final Set<String> HOP_BY_HOP_HEADERS = Set.of("connection", "keep-alive", "proxy-authenticate",
+            "proxy-authorization", "te", "trailer", "transfer-encoding", "upgrade", "content-length");
+
     protected final RestTemplate rest;
+    private final RequestCoalescer coalescer;
+    private final ServerResilience resilience;
+    private final String basePath;
 
-    public BaseClient(RestTemplate rest) {
+    public BaseClient(RestTemplate rest, RequestCoalescer coalescer, ServerResilience resilience) {
         this.rest = rest;
+        this.coalescer = coalescer;
+        this.resilience = resilience;
+        this.basePath = rest.getUriTemplateHandler().expand("").getPath();
     }
 
     protected ResponseEntity<Object> get(String path) {
@@ -83,38 +112,139 @@ public class BaseClient {
         return makeAndSendRequest(HttpMethod.DELETE, path, userId, parameters, null);
     }
 
+    protected static String joinIds(List<Long> ids) {
+        return ids.stream()
+                .map(String::valueOf)
+                .collect(Collectors.joining(","));
+    }
+
     private <T> ResponseEntity<Object> makeAndSendRequest(HttpMethod method, String path, Long userId, @Nullable Map<String, Object> parameters, @Nullable T body) {
-        HttpEntity<T> requestEntity = new HttpEntity<>(body, defaultHeaders(userId));
+        String endpoint = endpointOf(path);
+        // read on the calling thread, retries and hedged reads run on other threads
+        HttpServletRequest request = currentRequest();
+        HttpHeaders headers = defaultHeaders(userId, lastWriteCookie(request), acceptedEncoding(request));
+        if (method == HttpMethod.GET) {
+            return coalescer.execute(coalescingKey(path, headers, parameters), () -> resilience.execute(method,
+                    endpoint, () -> sendRequest(method, path, headers, parameters, body)));
+        }
+        return resilience.execute(method, endpoint, () -> sendRequest(method, path, headers, parameters, body));
+    }
 
-        ResponseEntity<Object> shareitServerResponse;
+    private <T> ResponseEntity<Object> sendRequest(HttpMethod method, String path, HttpHeaders headers, @Nullable Map<String, Object> parameters, @Nullable T body) {
+        HttpEntity<T> requestEntity = new HttpEntity<>(body, headers);
+
+        // the body stays as the server sent it, compressed when the client accepted gzip
+        ResponseEntity<byte[]> shareitServerResponse;
         try {
             if (parameters != null) {
-                shareitServerResponse = rest.exchange(path, method, requestEntity, Object.class, parameters);
+                shareitServerResponse = rest.exchange(path, method, requestEntity, byte[].class, parameters);
             } else {
-                shareitServerResponse = rest.exchange(path, method, requestEntity, Object.class);
+                shareitServerResponse = rest.exchange(path, method, requestEntity, byte[].class);
             }
         } catch (HttpStatusCodeException e) {
-            return ResponseEntity.status(e.getStatusCode()).body(e.getResponseBodyAsByteArray());
+            return ResponseEntity.status(e.getStatusCode())
+                    .headers(endToEndHeaders(e.getResponseHeaders()))
+                    .body(e.getResponseBodyAsByteArray());
         }
         return prepareGatewayResponse(shareitServerResponse);
     }
 
-    private HttpHeaders defaultHeaders(Long userId) {
+    private String endpointOf(String path) {
+        int query = path.indexOf('?');
+        return basePath + ID_SEGMENT.matcher(query >= 0 ? path.substring(0, query) : path).replaceAll("/{id}");
+    }
+
+    private String coalescingKey(String path, HttpHeaders headers, @Nullable Map<String, Object> parameters) {
+        URI uri = parameters != null
+                ? rest.getUriTemplateHandler().expand(path, parameters)
+                : rest.getUriTemplateHandler().expand(path);
+        // a read after a write must not share the response of a read that may have gone to the replica,
+        // nor a client without gzip the compressed response of another
+        return headers.getFirst("X-Sharer-User-Id") + " " + headers.getFirst(HttpHeaders.COOKIE) + " "
+                + headers.getFirst(HttpHeaders.ACCEPT_ENCODING) + " " + uri;
+    }
+
+    private HttpHeaders defaultHeaders(Long userId, @Nullable String lastWrite, @Nullable String encoding) {
         HttpHeaders headers = new HttpHeaders();
         headers.setContentType(MediaType.APPLICATION_JSON);
         headers.setAccept(List.of(MediaType.APPLICATION_JSON));
         if (userId != null) {
             headers.set("X-Sharer-User-Id", String.valueOf(userId));
         }
+        if (lastWrite != null) {
+            headers.set(HttpHeaders.COOKIE, LAST_WRITE_COOKIE + "=" + lastWrite);
+        }
+        if (encoding != null) {
+            headers.set(HttpHeaders.ACCEPT_ENCODING, encoding);
+        }
         return headers;
     }
 
-    private static ResponseEntity<Object> prepareGatewayResponse(ResponseEntity<Object> response) {
-        if (response.getStatusCode().is2xxSuccessful()) {
-            return response;
+    @Nullable
+    private static HttpServletRequest currentRequest() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes instanceof ServletRequestAttributes
+                ? ((ServletRequestAttributes) attributes).getRequest()
+                : null;
+    }
+
+    @Nullable
+    private static String lastWriteCookie(@Nullable HttpServletRequest request) {
+        if (request == null) {
+            return null;
+        }
+        Cookie cookie = WebUtils.getCookie(request, LAST_WRITE_COOKIE);
+        return cookie != null ? cookie.getValue() : null;
+    }
+
+    /**
+     * gzip when the client accepts it, the only encoding the server produces; otherwise the server answers
+     * uncompressed.
+     */
+    @Nullable
+    private static String acceptedEncoding(@Nullable HttpServletRequest request) {
+        String acceptEncoding = request != null ? request.getHeader(HttpHeaders.ACCEPT_ENCODING) : null;
+        if (acceptEncoding == null) {
+            return null;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parameters = coding.split(";");
+            if (GZIP.equalsIgnoreCase(parameters[0].trim()) && !isRefused(parameters)) {
+                return GZIP;
+            }
+        }
+        return null;
+    }
+
+    private static boolean isRefused(String[] codingParameters) {
+        for (int i = 1; i < codingParameters.length; i++) {
+            String parameter = codingParameters[i].trim();
+            if (parameter.startsWith("q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2)) <= 0;
+                } catch (NumberFormatException e) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static HttpHeaders endToEndHeaders(@Nullable HttpHeaders headers) {
+        HttpHeaders endToEnd = new HttpHeaders();
+        if (headers != null) {
+            headers.forEach((name, values) -> {
+                if (!HOP_BY_HOP_HEADERS.contains(name.toLowerCase(Locale.ROOT))) {
+                    endToEnd.addAll(name, values);
+                }
+            });
         }
+        return endToEnd;
+    }
 
-        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(response.getStatusCode());
+    private static ResponseEntity<Object> prepareGatewayResponse(ResponseEntity<byte[]> response) {
+        ResponseEntity.BodyBuilder responseBuilder = ResponseEntity.status(response.getStatusCode())
+                .headers(endToEndHeaders(response.getHeaders()));
 
         if (response.hasBody()) {
             return responseBuilder.body(response.getBody());
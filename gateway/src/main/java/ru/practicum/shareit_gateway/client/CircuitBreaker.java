@@ -0,0 +1,103 @@
+package ru.practicum.shareit_gateway.client;
+
+/**
+ * Count-based circuit breaker: opens when the failure rate of the latest calls reaches the threshold,
+ * lets one trial call through after the open duration and closes again when it succeeds.
+ */
+class CircuitBreaker {
+    enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final boolean[] failures;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openNanos;
+    private State state = State.CLOSED;
+    private int next;
+    private int calls;
+    private int failed;
+    private long openedAt;
+    private boolean trialInFlight;
+
+    CircuitBreaker(ResilienceProperties.CircuitBreaker properties) {
+        this.failures = new boolean[Math.max(properties.getWindowSize(), 1)];
+        this.minimumCalls = Math.min(Math.max(properties.getMinimumCalls(), 1), failures.length);
+        this.failureRateThreshold = properties.getFailureRateThreshold();
+        this.openNanos = properties.getOpenDuration().toNanos();
+    }
+
+    /**
+     * @return 0 if the call is permitted, otherwise nanoseconds until a trial call is let through
+     */
+    synchronized long tryAcquire(long now) {
+        if (state == State.OPEN) {
+            long remaining = openedAt + openNanos - now;
+            if (remaining > 0) {
+                return remaining;
+            }
+            state = State.HALF_OPEN;
+        }
+        if (state == State.HALF_OPEN) {
+            if (trialInFlight) {
+                return openNanos;
+            }
+            trialInFlight = true;
+        }
+        return 0;
+    }
+
+    synchronized void onSuccess() {
+        if (state == State.HALF_OPEN) {
+            close();
+            return;
+        }
+        record(false);
+    }
+
+    synchronized void onFailure(long now) {
+        if (state == State.HALF_OPEN) {
+            open(now);
+            return;
+        }
+        record(true);
+        if (calls >= minimumCalls && (double) failed / calls >= failureRateThreshold) {
+            open(now);
+        }
+    }
+
+    synchronized State getState() {
+        return state;
+    }
+
+    private void record(boolean failure) {
+        if (calls == failures.length) {
+            if (failures[next]) {
+                failed--;
+            }
+        } else {
+            calls++;
+        }
+        failures[next] = failure;
+        if (failure) {
+            failed++;
+        }
+        next = (next + 1) % failures.length;
+    }
+
+    private void open(long now) {
+        state = State.OPEN;
+        openedAt = now;
+        trialInFlight = false;
+    }
+
+    private void close() {
+        state = State.CLOSED;
+        trialInFlight = false;
+        calls = 0;
+        failed = 0;
+        next = 0;
+    }
+}
@@ -0,0 +1,43 @@
+package ru.practicum.shareit_gateway.client;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.http.client.support.HttpRequestWrapper;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.net.URI;
+
+@Component
+@RequiredArgsConstructor
+public class LoadBalancingInterceptor implements ClientHttpRequestInterceptor {
+    private final ServerInstancePool pool;
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        ServerInstance instance = pool.choose();
+        URI target = pool.route(request.getURI(), instance);
+        HttpRequest routed = new HttpRequestWrapper(request) {
+            @Override
+            public URI getURI() {
+                return target;
+            }
+        };
+        instance.start();
+        long start = System.nanoTime();
+        try {
+            ClientHttpResponse response = execution.execute(routed, body);
+            pool.recordResult(instance, response.getRawStatusCode() >= 500);
+            return response;
+        } catch (IOException e) {
+            pool.markDown(instance);
+            throw e;
+        } finally {
+            instance.finish(System.nanoTime() - start);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package ru.practicum.shareit_gateway.client;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Instances of shareit server the gateway spreads its calls over, shareit.server.load-balancing.*.
+ */
+@Data
+@ConfigurationProperties("shareit.server.load-balancing")
+public class LoadBalancingProperties {
+    /**
+     * Base urls of server instances, shareit.server.url alone when empty.
+     */
+    private List<String> instances = new ArrayList<>();
+    private Strategy strategy = Strategy.POWER_OF_TWO_CHOICES;
+    private Duration healthCheckTimeout = Duration.ofSeconds(1);
+
+    public enum Strategy {
+        LEAST_OUTSTANDING,
+        POWER_OF_TWO_CHOICES
+    }
+}
@@ -0,0 +1,71 @@
+package ru.practicum.shareit_gateway.client;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight execution of identical GETs: while a call for a key is in flight,
+ * further callers with the same key wait for it and get the same response.
+ * Coalescing ratio is shareit.gateway.get.requests{coalesced=true} over all shareit.gateway.get.requests.
+ */
+@Component
+public class RequestCoalescer {
+    private static final String REQUESTS_METRIC = "shareit.gateway.get.requests";
+
+    private final boolean enabled;
+    private final Counter upstreamRequests;
+    private final Counter coalescedRequests;
+    private final ConcurrentMap<String, CompletableFuture<ResponseEntity<Object>>> inFlight =
+            new ConcurrentHashMap<>();
+
+    public RequestCoalescer(@Value("${shareit.server.coalescing.enabled:true}") boolean enabled,
+                            MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.upstreamRequests = meterRegistry.counter(REQUESTS_METRIC, "coalesced", "false");
+        this.coalescedRequests = meterRegistry.counter(REQUESTS_METRIC, "coalesced", "true");
+    }
+
+    public ResponseEntity<Object> execute(String key, Supplier<ResponseEntity<Object>> call) {
+        if (!enabled) {
+            upstreamRequests.increment();
+            return call.get();
+        }
+        CompletableFuture<ResponseEntity<Object>> own = new CompletableFuture<>();
+        CompletableFuture<ResponseEntity<Object>> leader = inFlight.putIfAbsent(key, own);
+        if (leader != null) {
+            coalescedRequests.increment();
+            return await(leader);
+        }
+        upstreamRequests.increment();
+        try {
+            ResponseEntity<Object> response = call.get();
+            own.complete(response);
+            return response;
+        } catch (RuntimeException | Error e) {
+            own.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, own);
+        }
+    }
+
+    private static ResponseEntity<Object> await(CompletableFuture<ResponseEntity<Object>> leader) {
+        try {
+            return leader.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package ru.practicum.shareit_gateway.client;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Protection of gateway calls to shareit server, shareit.server.resilience.*.
+ */
+@Data
+@ConfigurationProperties("shareit.server.resilience")
+public class ResilienceProperties {
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+    private Retry retry = new Retry();
+    private Hedging hedging = new Hedging();
+
+    @Data
+    public static class CircuitBreaker {
+        /**
+         * Number of latest calls of an endpoint the failure rate is computed on.
+         */
+        private int windowSize = 20;
+        private int minimumCalls = 10;
+        private double failureRateThreshold = 0.5;
+        private Duration openDuration = Duration.ofSeconds(5);
+    }
+
+    @Data
+    public static class Retry {
+        /**
+         * Attempts of an idempotent GET including the first one.
+         */
+        private int maxAttempts = 2;
+        private Duration backoff = Duration.ofMillis(50);
+        /**
+         * Retries allowed per request, so that retries never add more than this share of load.
+         */
+        private double budgetRatio = 0.1;
+        private int minBudget = 10;
+    }
+
+    @Data
+    public static class Hedging {
+        private boolean enabled = false;
+        /**
+         * A second GET is sent when the first one has not been answered within this delay.
+         */
+        private Duration delay = Duration.ofMillis(100);
+        private int maxConcurrency = 20;
+    }
+}
@@ -0,0 +1,42 @@
+package ru.practicum.shareit_gateway.client;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Every request deposits a fraction of a retry, every retry withdraws a whole one.
+ * Kept in thousandths of a retry.
+ */
+class RetryBudget {
+    private static final long SCALE = 1000;
+
+    private final long deposit;
+    private final long capacity;
+    private final AtomicLong balance;
+
+    RetryBudget(double ratio, int minBudget) {
+        this.deposit = Math.round(ratio * SCALE);
+        this.capacity = Math.max(minBudget, 1) * SCALE;
+        this.balance = new AtomicLong(capacity);
+    }
+
+    void deposit() {
+        long current;
+        do {
+            current = balance.get();
+            if (current >= capacity) {
+                return;
+            }
+        } while (!balance.compareAndSet(current, Math.min(current + deposit, capacity)));
+    }
+
+    boolean tryWithdraw() {
+        long current;
+        do {
+            current = balance.get();
+            if (current < SCALE) {
+                return false;
+            }
+        } while (!balance.compareAndSet(current, current - SCALE));
+        return true;
+    }
+}
@@ -0,0 +1,72 @@
+package ru.practicum.shareit_gateway.client;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class ServerInstance {
+    private final String url;
+    private final AtomicInteger outstanding = new AtomicInteger();
+    private final Timer latency;
+    private final ResilienceProperties.CircuitBreaker failureProperties;
+    private volatile CircuitBreaker failures;
+    private volatile boolean healthy = true;
+
+    ServerInstance(String url, ResilienceProperties.CircuitBreaker failureProperties, MeterRegistry meterRegistry) {
+        this.url = url;
+        this.failureProperties = failureProperties;
+        this.failures = new CircuitBreaker(failureProperties);
+        this.latency = meterRegistry.timer("shareit.gateway.server.requests", "instance", url);
+        Gauge.builder("shareit.gateway.server.outstanding", outstanding, AtomicInteger::get)
+                .tag("instance", url)
+                .register(meterRegistry);
+        Gauge.builder("shareit.gateway.server.healthy", this, instance -> instance.isHealthy() ? 1 : 0)
+                .tag("instance", url)
+                .register(meterRegistry);
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public int getOutstanding() {
+        return outstanding.get();
+    }
+
+    public boolean isHealthy() {
+        return healthy;
+    }
+
+    void setHealthy(boolean healthy) {
+        this.healthy = healthy;
+    }
+
+    /**
+     * @return true if the failure rate of the latest calls to this instance has reached the threshold
+     */
+    boolean recordResult(boolean failed, long now) {
+        CircuitBreaker breaker = failures;
+        if (failed) {
+            breaker.onFailure(now);
+        } else {
+            breaker.onSuccess();
+        }
+        return breaker.getState() == CircuitBreaker.State.OPEN;
+    }
+
+    void resetFailures() {
+        failures = new CircuitBreaker(failureProperties);
+    }
+
+    void start() {
+        outstanding.incrementAndGet();
+    }
+
+    void finish(long latencyNanos) {
+        outstanding.decrementAndGet();
+        latency.record(latencyNanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,151 @@
+package ru.practicum.shareit_gateway.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * Server instances behind the logical shareit.server.url. Each call is sent to a healthy instance
+ * with the least outstanding calls, either of all of them or of two picked at random.
+ * Instances are checked against actuator health and taken out on connection failures, or when their rate of 5xx
+ * answers reaches the circuit breaker threshold, until they are up again. So an instance failing on its own is taken
+ * out before its failures open the circuits of whole endpoints.
+ */
+@Slf4j
+@Component
+public class ServerInstancePool {
+    private static final String HEALTH_PATH = "/actuator/health";
+
+    private final String serverUrl;
+    private final List<ServerInstance> instances;
+    private final LoadBalancingProperties.Strategy strategy;
+    private final RestTemplate healthCheck;
+
+    public ServerInstancePool(@Value("${shareit.server.url}") String serverUrl,
+                              LoadBalancingProperties properties,
+                              ResilienceProperties resilienceProperties,
+                              RestTemplateBuilder builder,
+                              MeterRegistry meterRegistry) {
+        this.serverUrl = trimSlash(serverUrl);
+        List<String> urls = properties.getInstances().isEmpty() ? List.of(serverUrl) : properties.getInstances();
+        this.instances = Collections.unmodifiableList(urls.stream()
+                .map(ServerInstancePool::trimSlash)
+                .distinct()
+                .map(url -> new ServerInstance(url, resilienceProperties.getCircuitBreaker(), meterRegistry))
+                .collect(Collectors.toList()));
+        this.strategy = properties.getStrategy();
+        this.healthCheck = builder
+                .setConnectTimeout(properties.getHealthCheckTimeout())
+                .setReadTimeout(properties.getHealthCheckTimeout())
+                .build();
+    }
+
+    public ServerInstance choose() {
+        List<ServerInstance> candidates = healthyInstances();
+        if (candidates.size() == 1) {
+            return candidates.get(0);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        if (strategy == LoadBalancingProperties.Strategy.POWER_OF_TWO_CHOICES) {
+            int first = random.nextInt(candidates.size());
+            int second = random.nextInt(candidates.size() - 1);
+            if (second >= first) {
+                second++;
+            }
+            return lessLoaded(candidates.get(first), candidates.get(second));
+        }
+        int start = random.nextInt(candidates.size());
+        ServerInstance chosen = candidates.get(start);
+        for (int i = 1; i < candidates.size(); i++) {
+            chosen = lessLoaded(chosen, candidates.get((start + i) % candidates.size()));
+        }
+        return chosen;
+    }
+
+    public URI route(URI uri, ServerInstance instance) {
+        String target = uri.toString();
+        if (!target.startsWith(serverUrl)) {
+            return uri;
+        }
+        return URI.create(instance.getUrl() + target.substring(serverUrl.length()));
+    }
+
+    /**
+     * Routes calls of the WebClient used for streams; long-lived streams are not counted as outstanding calls.
+     */
+    public ExchangeFilterFunction exchangeFilter() {
+        return (request, next) -> next.exchange(ClientRequest.from(request)
+                .url(route(request.url(), choose()))
+                .build());
+    }
+
+    public List<ServerInstance> getInstances() {
+        return instances;
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.server.load-balancing.health-check-interval:5000}")
+    public void checkHealth() {
+        for (ServerInstance instance : instances) {
+            boolean healthy;
+            try {
+                healthy = healthCheck.getForEntity(instance.getUrl() + HEALTH_PATH, String.class)
+                        .getStatusCode().is2xxSuccessful();
+            } catch (RestClientException e) {
+                healthy = false;
+            }
+            if (healthy != instance.isHealthy()) {
+                log.info("Server instance {} is {}", instance.getUrl(), healthy ? "up" : "down");
+                if (healthy) {
+                    instance.resetFailures();
+                }
+            }
+            instance.setHealthy(healthy);
+        }
+    }
+
+    void recordResult(ServerInstance instance, boolean failed) {
+        if (instance.recordResult(failed, System.nanoTime())) {
+            markDown(instance);
+        }
+    }
+
+    void markDown(ServerInstance instance) {
+        if (instance.isHealthy() && instances.size() > 1) {
+            log.warn("Server instance {} is down", instance.getUrl());
+            instance.setHealthy(false);
+        }
+    }
+
+    private List<ServerInstance> healthyInstances() {
+        List<ServerInstance> healthy = new ArrayList<>(instances.size());
+        for (ServerInstance instance : instances) {
+            if (instance.isHealthy()) {
+                healthy.add(instance);
+            }
+        }
+        // with no instance known to be up every one is tried rather than failing without a call
+        return healthy.isEmpty() ? instances : healthy;
+    }
+
+    private static ServerInstance lessLoaded(ServerInstance first, ServerInstance second) {
+        return second.getOutstanding() < first.getOutstanding() ? second : first;
+    }
+
+    private static String trimSlash(String url) {
+        return url.endsWith("/") ? url.substring(0, url.length() - 1) : url;
+    }
+}
@@ -0,0 +1,203 @@
+package ru.practicum.shareit_gateway.client;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.ResourceAccessException;
+import ru.practicum.shareit_gateway.exception.ErrorResponse;
+
+import javax.annotation.PreDestroy;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Calls to shareit server go through a circuit breaker per endpoint. Idempotent GETs are retried
+ * on unavailability within a retry budget and, if enabled, hedged by a second request when the first is slow.
+ * Responses of the server are passed as they are, an open circuit answers 503 without calling the server.
+ * A single failing instance is taken out by ServerInstancePool, so it does not open the circuits of all instances.
+ */
+@Slf4j
+@Component
+public class ServerResilience {
+    private final ResilienceProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final RetryBudget retryBudget;
+    private final ThreadPoolExecutor hedgingExecutor;
+    private final ConcurrentMap<String, CircuitBreaker> breakers = new ConcurrentHashMap<>();
+
+    public ServerResilience(ResilienceProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.retryBudget = new RetryBudget(properties.getRetry().getBudgetRatio(),
+                properties.getRetry().getMinBudget());
+        this.hedgingExecutor = properties.getHedging().isEnabled()
+                ? new ThreadPoolExecutor(0, Math.max(properties.getHedging().getMaxConcurrency(), 1),
+                60, TimeUnit.SECONDS, new SynchronousQueue<>())
+                : null;
+    }
+
+    public ResponseEntity<Object> execute(HttpMethod method, String endpoint, Supplier<ResponseEntity<Object>> call) {
+        String name = method + " " + endpoint;
+        CircuitBreaker breaker = breakers.computeIfAbsent(name,
+                key -> new CircuitBreaker(properties.getCircuitBreaker()));
+        long openNanos = breaker.tryAcquire(System.nanoTime());
+        if (openNanos > 0) {
+            meterRegistry.counter("shareit.gateway.circuit.rejected", "endpoint", name).increment();
+            return unavailable(name, openNanos);
+        }
+        boolean idempotent = method == HttpMethod.GET;
+        if (idempotent) {
+            retryBudget.deposit();
+        }
+        for (int attempt = 1; ; attempt++) {
+            ResponseEntity<Object> response = null;
+            RuntimeException error = null;
+            try {
+                response = idempotent && hedgingExecutor != null ? hedged(name, call) : call.get();
+            } catch (RuntimeException e) {
+                error = e;
+            }
+            if (error == null && !isServerFailure(response)) {
+                breaker.onSuccess();
+                return response;
+            }
+            if (idempotent && attempt < properties.getRetry().getMaxAttempts() && isRetryable(error, response)
+                    && retryBudget.tryWithdraw()) {
+                meterRegistry.counter("shareit.gateway.retries", "endpoint", name).increment();
+                backoff(attempt);
+                continue;
+            }
+            breaker.onFailure(System.nanoTime());
+            if (error != null) {
+                throw error;
+            }
+            return response;
+        }
+    }
+
+    CircuitBreaker.State getState(HttpMethod method, String endpoint) {
+        CircuitBreaker breaker = breakers.get(method + " " + endpoint);
+        return breaker != null ? breaker.getState() : CircuitBreaker.State.CLOSED;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (hedgingExecutor != null) {
+            hedgingExecutor.shutdownNow();
+        }
+    }
+
+    private ResponseEntity<Object> hedged(String name, Supplier<ResponseEntity<Object>> call) {
+        CompletableFuture<ResponseEntity<Object>> primary;
+        try {
+            primary = CompletableFuture.supplyAsync(call, hedgingExecutor);
+        } catch (RejectedExecutionException e) {
+            return call.get();
+        }
+        try {
+            return primary.get(properties.getHedging().getDelay().toNanos(), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            log.debug("No answer for {} within hedging delay", name);
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for shareit server", e);
+        }
+        CompletableFuture<ResponseEntity<Object>> hedge;
+        try {
+            hedge = CompletableFuture.supplyAsync(call, hedgingExecutor);
+        } catch (RejectedExecutionException e) {
+            return await(primary);
+        }
+        meterRegistry.counter("shareit.gateway.hedges", "endpoint", name).increment();
+        return await(firstSuccessful(primary, hedge));
+    }
+
+    private CompletableFuture<ResponseEntity<Object>> firstSuccessful(CompletableFuture<ResponseEntity<Object>> first,
+                                                                      CompletableFuture<ResponseEntity<Object>> second) {
+        CompletableFuture<ResponseEntity<Object>> result = new CompletableFuture<>();
+        AtomicInteger failed = new AtomicInteger();
+        BiConsumer<ResponseEntity<Object>, Throwable> onComplete = (response, error) -> {
+            if (error == null && !isServerFailure(response)) {
+                result.complete(response);
+            } else if (failed.incrementAndGet() == 2) {
+                if (error != null) {
+                    result.completeExceptionally(error);
+                } else {
+                    result.complete(response);
+                }
+            }
+        };
+        first.whenComplete(onComplete);
+        second.whenComplete(onComplete);
+        return result;
+    }
+
+    private static ResponseEntity<Object> await(CompletableFuture<ResponseEntity<Object>> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable error) {
+        if (error instanceof CompletionException && error.getCause() != null) {
+            error = error.getCause();
+        }
+        if (error instanceof RuntimeException) {
+            return (RuntimeException) error;
+        }
+        return new IllegalStateException(error);
+    }
+
+    private static boolean isServerFailure(ResponseEntity<Object> response) {
+        return response.getStatusCode().is5xxServerError();
+    }
+
+    private static boolean isRetryable(RuntimeException error, ResponseEntity<Object> response) {
+        if (error != null) {
+            return error instanceof ResourceAccessException;
+        }
+        HttpStatus status = response.getStatusCode();
+        return status == HttpStatus.BAD_GATEWAY || status == HttpStatus.SERVICE_UNAVAILABLE
+                || status == HttpStatus.GATEWAY_TIMEOUT;
+    }
+
+    private void backoff(int attempt) {
+        long maxNanos = properties.getRetry().getBackoff().toNanos() << (attempt - 1);
+        if (maxNanos <= 0) {
+            return;
+        }
+        try {
+            TimeUnit.NANOSECONDS.sleep(ThreadLocalRandom.current().nextLong(maxNanos / 2, maxNanos + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static ResponseEntity<Object> unavailable(String name, long openNanos) {
+        long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(openNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter))
+                .body(new ErrorResponse("Shareit server is unavailable for " + name,
+                        HttpStatus.SERVICE_UNAVAILABLE.value()));
+    }
+}
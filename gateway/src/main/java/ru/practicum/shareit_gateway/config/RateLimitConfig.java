@@ -0,0 +1,29 @@
+package ru.practicum.shareit_gateway.config;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import ru.practicum.shareit_gateway.ratelimit.RateLimitInterceptor;
+import ru.practicum.shareit_gateway.ratelimit.RateLimitProperties;
+
+/**
+ * Admission control in front of all gateway controllers.
+ */
+@Configuration
+@EnableScheduling
+@RequiredArgsConstructor
+@EnableConfigurationProperties(RateLimitProperties.class)
+public class RateLimitConfig implements WebMvcConfigurer {
+    private final RateLimitProperties properties;
+    private final RateLimitInterceptor rateLimitInterceptor;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        if (properties.isEnabled()) {
+            registry.addInterceptor(rateLimitInterceptor).excludePathPatterns("/actuator/**");
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package ru.practicum.shareit_gateway.config;
+
+import io.netty.channel.ChannelOption;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.InterceptingClientHttpRequestFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.resources.ConnectionProvider;
+import ru.practicum.shareit_gateway.client.JdkClientHttpRequestFactory;
+import ru.practicum.shareit_gateway.client.LoadBalancingInterceptor;
+import ru.practicum.shareit_gateway.client.LoadBalancingProperties;
+import ru.practicum.shareit_gateway.client.ResilienceProperties;
+import ru.practicum.shareit_gateway.client.ServerInstancePool;
+import ru.practicum.shareit_gateway.ratelimit.ServerLatencyMonitor;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One HTTP client shared by all clients of shareit server, speaking h2c to the server when shareit.server.http2.enabled.
+ * Responses are passed to end clients as received: the client's Accept-Encoding is forwarded (unless
+ * shareit.server.compression.enabled is off), so a gzip response of the server reaches the client without being
+ * inflated and compressed again.
+ * Concurrent calls to one server instance are capped at shareit.server.http2.max-concurrent-streams, the stream
+ * limit the server announces on its h2c connection.
+ * Long-lived streams go through the non-blocking WebClient so that idle subscribers hold no threads. Each stream
+ * holds a connection of its own, from a pool of shareit.server.streams.max-connections per server instance.
+ * Latency of the client feeds the load shedding of the rate limiter.
+ * Calls are bounded by timeouts so that a stalled server surfaces as failures of its circuit breakers.
+ * shareit.server.url is the logical address, every call is routed to one of the server instances.
+ */
+@Configuration
+@EnableConfigurationProperties({ResilienceProperties.class, LoadBalancingProperties.class})
+public class ServerClientConfig {
+    @Bean
+    public ClientHttpRequestFactory serverRequestFactory(
+            @Value("${shareit.server.http2.enabled:true}") boolean http2Enabled,
+            @Value("${shareit.server.compression.enabled:true}") boolean compressionEnabled,
+            @Value("${shareit.server.connect-timeout:1000}") int connectTimeout,
+            @Value("${shareit.server.read-timeout:5000}") int readTimeout,
+            @Value("${shareit.server.http2.max-concurrent-streams:100}") int maxConcurrentStreams,
+            ServerLatencyMonitor serverLatencyMonitor,
+            LoadBalancingInterceptor loadBalancingInterceptor) {
+        HttpClient httpClient = HttpClient.newBuilder()
+                .version(http2Enabled ? HttpClient.Version.HTTP_2 : HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofMillis(connectTimeout))
+                .build();
+        List<ClientHttpRequestInterceptor> interceptors = new ArrayList<>(List.of(serverLatencyMonitor,
+                loadBalancingInterceptor));
+        if (!compressionEnabled) {
+            interceptors.add((request, body, execution) -> {
+                request.getHeaders().remove(HttpHeaders.ACCEPT_ENCODING);
+                return execution.execute(request, body);
+            });
+        }
+        return new InterceptingClientHttpRequestFactory(
+                new JdkClientHttpRequestFactory(httpClient, Duration.ofMillis(readTimeout), maxConcurrentStreams), interceptors);
+    }
+
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider serverStreamConnections(
+            @Value("${shareit.server.streams.max-connections:20000}") int maxConnections,
+            @Value("${shareit.server.connect-timeout:1000}") int connectTimeout) {
+        return ConnectionProvider.builder("shareit-server-streams")
+                .maxConnections(maxConnections)
+                .pendingAcquireTimeout(Duration.ofMillis(connectTimeout))
+                .build();
+    }
+
+    @Bean
+    public WebClient serverWebClient(@Value("${shareit.server.url}") String serverUrl, WebClient.Builder builder,
+                                     @Value("${shareit.server.connect-timeout:1000}") int connectTimeout,
+                                     ConnectionProvider serverStreamConnections,
+                                     ServerInstancePool serverInstancePool) {
+        return builder
+                .baseUrl(serverUrl)
+                .clientConnector(new ReactorClientHttpConnector(reactor.netty.http.client.HttpClient
+                        .create(serverStreamConnections)
+                        .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, connectTimeout)))
+                .filter(serverInstancePool.exchangeFilter())
+                .build();
+    }
+}
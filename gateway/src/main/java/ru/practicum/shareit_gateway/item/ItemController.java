@@ -18,8 +18,10 @@ import ru.practicum.shareit_gateway.item.dto.CommentDto;
 import ru.practicum.shareit_gateway.item.dto.ItemDto;
 
 import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import java.util.List;
 
 @RestController
 @RequiredArgsConstructor
@@ -66,6 +68,15 @@ public class ItemController {
         return itemClient.getItemByIdAndUserId(userId, itemId);
     }
 
+    @GetMapping("/{itemId}/comments")
+    public ResponseEntity<Object> getComments(@RequestHeader("X-Sharer-User-Id") long userId,
+                                              @Positive @PathVariable long itemId,
+                                              @RequestParam(required = false) String cursor,
+                                              @Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
+        log.info("Request for get {} comments on item {} after {}", size, itemId, cursor);
+        return itemClient.getComments(userId, itemId, cursor, size);
+    }
+
     @GetMapping
     public ResponseEntity<Object> getItemsByUserId(@RequestHeader("X-Sharer-User-Id") long userId,
                 @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
@@ -74,6 +85,13 @@ public class ItemController {
         return itemClient.getItemsByUserId(userId, from, size);
     }
 
+    @GetMapping(params = "ids")
+    public ResponseEntity<Object> getItemsByIds(@RequestHeader("X-Sharer-User-Id") long userId,
+                @NotEmpty @RequestParam List<@Positive Long> ids) {
+        log.info("Request for get items {} of user {}", ids, userId);
+        return itemClient.getItemsByIds(userId, ids);
+    }
+
     @GetMapping("/search")
     public ResponseEntity<Object> searchItems(@RequestHeader("X-Sharer-User-Id") long userId,
                 @RequestParam String text,
@@ -0,0 +1,14 @@
+package ru.practicum.shareit_gateway.ratelimit;
+
+public enum EndpointClass {
+    SEARCH,
+    LISTING,
+    WRITE;
+
+    public static EndpointClass of(String method, String path) {
+        if (!"GET".equals(method) && !"HEAD".equals(method) && !"OPTIONS".equals(method)) {
+            return WRITE;
+        }
+        return path.endsWith("/search") ? SEARCH : LISTING;
+    }
+}
@@ -0,0 +1,37 @@
+package ru.practicum.shareit_gateway.ratelimit;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.HandlerInterceptor;
+import ru.practicum.shareit_gateway.exception.TooManyRequestsException;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.util.concurrent.TimeUnit;
+
+@Component
+@RequiredArgsConstructor
+public class RateLimitInterceptor implements HandlerInterceptor {
+    private static final String USER_HEADER = "X-Sharer-User-Id";
+    private static final String ANONYMOUS = "anonymous";
+
+    private final RateLimiter rateLimiter;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (request.getDispatcherType() != DispatcherType.REQUEST) {
+            // async dispatches of streams were admitted with their initial request
+            return true;
+        }
+        String userId = request.getHeader(USER_HEADER);
+        EndpointClass endpointClass = EndpointClass.of(request.getMethod(), request.getRequestURI());
+        long waitNanos = rateLimiter.tryAcquire(userId != null ? userId : ANONYMOUS, endpointClass);
+        if (waitNanos > 0) {
+            long retryAfter = Math.max(1, (waitNanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1));
+            throw new TooManyRequestsException("Too many " + endpointClass.name().toLowerCase()
+                    + " requests, retry after " + retryAfter + " s", retryAfter);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,45 @@
+package ru.practicum.shareit_gateway.ratelimit;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Per-user limits of each endpoint class, shareit.rate-limit.&lt;class&gt;.rate (requests per second)
+ * and shareit.rate-limit.&lt;class&gt;.burst.
+ */
+@Data
+@ConfigurationProperties("shareit.rate-limit")
+public class RateLimitProperties {
+    private boolean enabled = true;
+    private Limit search = new Limit(50, 100);
+    private Limit listing = new Limit(100, 200);
+    private Limit write = new Limit(50, 100);
+    /**
+     * Average server latency above which admission is throttled in proportion to it.
+     */
+    private Duration shedLatency = Duration.ofMillis(500);
+    private double maxShedFactor = 10;
+
+    public Limit limitOf(EndpointClass endpointClass) {
+        switch (endpointClass) {
+            case SEARCH:
+                return search;
+            case WRITE:
+                return write;
+            default:
+                return listing;
+        }
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Limit {
+        private double rate;
+        private int burst;
+    }
+}
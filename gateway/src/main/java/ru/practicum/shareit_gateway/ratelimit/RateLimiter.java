@@ -0,0 +1,85 @@
+package ru.practicum.shareit_gateway.ratelimit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket per user and endpoint class, kept as the single timestamp at which the bucket is full again
+ * (the generic cell rate algorithm), so that admission is one compare-and-set without locks.
+ */
+@Component
+public class RateLimiter {
+    private static final double NANOS_PER_SECOND = 1e9;
+
+    private final RateLimitProperties properties;
+    private final ServerLatencyMonitor latencyMonitor;
+    private final LongSupplier nanoClock;
+    private final Map<EndpointClass, ConcurrentMap<String, AtomicLong>> buckets = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, Counter> rejected = new EnumMap<>(EndpointClass.class);
+
+    @Autowired
+    public RateLimiter(RateLimitProperties properties, ServerLatencyMonitor latencyMonitor,
+                       MeterRegistry meterRegistry) {
+        this(properties, latencyMonitor, meterRegistry, System::nanoTime);
+    }
+
+    RateLimiter(RateLimitProperties properties, ServerLatencyMonitor latencyMonitor,
+                MeterRegistry meterRegistry, LongSupplier nanoClock) {
+        this.properties = properties;
+        this.latencyMonitor = latencyMonitor;
+        this.nanoClock = nanoClock;
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            buckets.put(endpointClass, new ConcurrentHashMap<>());
+            rejected.put(endpointClass, meterRegistry.counter("shareit.gateway.rate-limit.rejected",
+                    "endpoint", endpointClass.name().toLowerCase()));
+        }
+    }
+
+    /**
+     * @return 0 if the request is admitted, otherwise nanoseconds until the user may retry
+     */
+    public long tryAcquire(String userId, EndpointClass endpointClass) {
+        RateLimitProperties.Limit limit = properties.limitOf(endpointClass);
+        long interval = (long) (NANOS_PER_SECOND / limit.getRate() * latencyMonitor.loadFactor());
+        long tolerance = interval * (Math.max(limit.getBurst(), 1) - 1);
+        long now = nanoClock.getAsLong();
+        ConcurrentMap<String, AtomicLong> userBuckets = buckets.get(endpointClass);
+        AtomicLong bucket = userBuckets.get(userId);
+        if (bucket == null) {
+            bucket = userBuckets.computeIfAbsent(userId, id -> new AtomicLong(now));
+        }
+        while (true) {
+            long fullAt = bucket.get();
+            long start = Math.max(fullAt, now);
+            long wait = start - now - tolerance;
+            if (wait > 0) {
+                rejected.get(endpointClass).increment();
+                return wait;
+            }
+            if (bucket.compareAndSet(fullAt, start + interval)) {
+                return 0;
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.rate-limit.idle-bucket-sweep-interval:60000}")
+    public void removeIdleBuckets() {
+        long now = nanoClock.getAsLong();
+        // a bucket that is full again is no different from a new one
+        buckets.values().forEach(userBuckets -> userBuckets.values().removeIf(bucket -> bucket.get() <= now));
+    }
+
+    int size(EndpointClass endpointClass) {
+        return buckets.get(endpointClass).size();
+    }
+}
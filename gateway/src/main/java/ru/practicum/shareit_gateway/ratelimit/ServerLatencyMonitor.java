@@ -0,0 +1,58 @@
+package ru.practicum.shareit_gateway.ratelimit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Exponentially weighted average of the time shareit server takes to answer gateway calls.
+ * While it stays above the shed latency every admission costs proportionally more tokens.
+ */
+@Component
+public class ServerLatencyMonitor implements ClientHttpRequestInterceptor {
+    private static final int SMOOTHING = 5;
+
+    private final long shedLatencyNanos;
+    private final double maxShedFactor;
+    private final AtomicLong averageNanos = new AtomicLong();
+
+    public ServerLatencyMonitor(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.shedLatencyNanos = Math.max(properties.getShedLatency().toNanos(), 1);
+        this.maxShedFactor = Math.max(properties.getMaxShedFactor(), 1);
+        meterRegistry.gauge("shareit.gateway.server.latency.average", averageNanos, value -> value.get() / 1e6);
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body, ClientHttpRequestExecution execution)
+            throws IOException {
+        long start = System.nanoTime();
+        try {
+            return execution.execute(request, body);
+        } finally {
+            record(System.nanoTime() - start);
+        }
+    }
+
+    public void record(long latencyNanos) {
+        long average;
+        long updated;
+        do {
+            average = averageNanos.get();
+            updated = average == 0 ? latencyNanos : average + (latencyNanos - average) / SMOOTHING;
+        } while (!averageNanos.compareAndSet(average, updated));
+    }
+
+    public double loadFactor() {
+        long average = averageNanos.get();
+        if (average <= shedLatencyNanos) {
+            return 1;
+        }
+        return Math.min((double) average / shedLatencyNanos, maxShedFactor);
+    }
+}
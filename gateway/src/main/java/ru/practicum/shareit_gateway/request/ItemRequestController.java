@@ -41,9 +41,11 @@ public class ItemRequestController {
     }
 
     @GetMapping
-    public ResponseEntity<Object> getItemRequestsByOwnerId(@RequestHeader("X-Sharer-User-Id") long userId) {
-        log.info("Request for get  user's {} requests for items", userId);
-        return requestClient.getItemRequestsByOwnerId(userId);
+    public ResponseEntity<Object> getItemRequestsByOwnerId(@RequestHeader("X-Sharer-User-Id") long userId,
+               @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
+               @Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
+        log.info("Request for get {} user's {} requests for items from {}", size, userId, from);
+        return requestClient.getItemRequestsByOwnerId(userId, from, size);
     }
 
     @GetMapping("/all")
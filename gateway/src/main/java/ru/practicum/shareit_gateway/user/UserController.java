@@ -11,11 +11,15 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import ru.practicum.shareit_gateway.user.dto.UserDto;
 
 import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
+import java.util.List;
 
 @RestController
 @RequiredArgsConstructor
@@ -49,9 +53,17 @@ public class UserController {
         return userClient.getUserById(userId);
     }
 
+    @GetMapping(params = "ids")
+    public ResponseEntity<Object> getUsersByIds(@NotEmpty @RequestParam List<@Positive Long> ids) {
+        log.info("Request for get users {}", ids);
+        return userClient.getUsersByIds(ids);
+    }
+
     @GetMapping
-    public ResponseEntity<Object> getUsers() {
-        log.info("Request for get all users");
-        return userClient.getUsers();
+    public ResponseEntity<Object> getUsers(
+            @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
+            @Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
+        log.info("Request for get {} users from {}", size, from);
+        return userClient.getUsers(from, size);
     }
 }
\ No newline at end of file
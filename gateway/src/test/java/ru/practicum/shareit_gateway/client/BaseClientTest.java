@@ -0,0 +1,235 @@
+package ru.practicum.shareit_gateway.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+
+import javax.servlet.http.Cookie;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPOutputStream;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+public class BaseClientTest {
+    private static final byte[] BODY = "{\"id\":1}".getBytes(StandardCharsets.UTF_8);
+    private static final String SET_LAST_WRITE = "shareit-last-write=1000; Path=/; Max-Age=5; HttpOnly";
+
+    private final List<String> cookies = new CopyOnWriteArrayList<>();
+    private final List<String> encodings = new CopyOnWriteArrayList<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService stubThreads = Executors.newCachedThreadPool();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private HttpServer stub;
+    private ServerResilience resilience;
+    private TestClient client;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        stub = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        stub.createContext("/", this::handle);
+        stub.createContext("/slow", this::handleSlow);
+        stub.setExecutor(stubThreads);
+        stub.start();
+        resilience = new ServerResilience(new ResilienceProperties(), meterRegistry);
+        RestTemplate rest = new RestTemplate(new JdkClientHttpRequestFactory(HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .build(), Duration.ofSeconds(5), 100));
+        rest.setUriTemplateHandler(new DefaultUriBuilderFactory("http://localhost:"
+                + stub.getAddress().getPort() + "/users"));
+        client = new TestClient(rest, new RequestCoalescer(true, meterRegistry), resilience);
+    }
+
+    @AfterEach
+    void stopStub() {
+        RequestContextHolder.resetRequestAttributes();
+        resilience.shutdown();
+        stub.stop(0);
+        stubThreads.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String cookie = exchange.getRequestHeaders().getFirst(HttpHeaders.COOKIE);
+        cookies.add(cookie != null ? cookie : "");
+        String encoding = exchange.getRequestHeaders().getFirst(HttpHeaders.ACCEPT_ENCODING);
+        encodings.add(encoding != null ? encoding : "");
+        byte[] body = BODY;
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        if ("POST".equals(exchange.getRequestMethod())) {
+            exchange.getResponseHeaders().set(HttpHeaders.SET_COOKIE, SET_LAST_WRITE);
+        }
+        if ("gzip".equals(encoding)) {
+            body = gzip(BODY);
+            exchange.getResponseHeaders().set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        // chunked, the response carries Transfer-Encoding
+        exchange.sendResponseHeaders(200, 0);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private void handleSlow(HttpExchange exchange) throws IOException {
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            Thread.sleep(100);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        inFlight.decrementAndGet();
+        exchange.sendResponseHeaders(200, BODY.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(BODY);
+        }
+    }
+
+    private static byte[] gzip(byte[] body) throws IOException {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(body);
+        }
+        return compressed.toByteArray();
+    }
+
+    private MockHttpServletRequest incomingRequest(Cookie... requestCookies) {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        if (requestCookies.length > 0) {
+            request.setCookies(requestCookies);
+        }
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        return request;
+    }
+
+    @Test
+    void lastWriteCookieIsPassedBackToClient() {
+        incomingRequest();
+
+        ResponseEntity<Object> response = client.post("", 1L, "{}");
+
+        assertThat(response.getHeaders().get(HttpHeaders.SET_COOKIE), contains(SET_LAST_WRITE));
+    }
+
+    @Test
+    void lastWriteCookieOfClientIsForwardedToServer() {
+        incomingRequest(new Cookie("shareit-last-write", "1000"), new Cookie("other", "value"));
+
+        client.get("/1", 1L);
+
+        assertThat(cookies, contains("shareit-last-write=1000"));
+    }
+
+    @Test
+    void noCookieIsSentWithoutLastWrite() {
+        incomingRequest(new Cookie("other", "value"));
+
+        client.get("/1", 1L);
+
+        assertThat(cookies, contains(""));
+    }
+
+    @Test
+    void compressedResponseIsPassedToClientAcceptingGzip() throws IOException {
+        incomingRequest().addHeader(HttpHeaders.ACCEPT_ENCODING, "deflate, gzip;q=0.8");
+
+        ResponseEntity<Object> response = client.get("/1", 1L);
+
+        assertThat(encodings, contains("gzip"));
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING), equalTo("gzip"));
+        assertThat((byte[]) response.getBody(), equalTo(gzip(BODY)));
+    }
+
+    @Test
+    void uncompressedResponseIsRequestedForClientWithoutGzip() {
+        incomingRequest().addHeader(HttpHeaders.ACCEPT_ENCODING, "br, gzip;q=0");
+
+        ResponseEntity<Object> response = client.get("/1", 1L);
+
+        assertThat(encodings, contains(""));
+        assertThat(response.getHeaders().containsKey(HttpHeaders.CONTENT_ENCODING), equalTo(false));
+        assertThat((byte[]) response.getBody(), equalTo(BODY));
+    }
+
+    @Test
+    void hopByHopHeadersAreNotPassedToClient() {
+        incomingRequest();
+
+        ResponseEntity<Object> response = client.get("/1", 1L);
+
+        assertThat(response.getHeaders().containsKey(HttpHeaders.TRANSFER_ENCODING), equalTo(false));
+        assertThat(response.getHeaders().getContentType(), equalTo(MediaType.APPLICATION_JSON));
+    }
+
+    @Test
+    void callsBeyondStreamLimitWaitForRunningOnes() throws Exception {
+        JdkClientHttpRequestFactory factory = new JdkClientHttpRequestFactory(HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_2)
+                .build(), Duration.ofSeconds(5), 2);
+        URI uri = URI.create("http://localhost:" + stub.getAddress().getPort() + "/slow");
+        ExecutorService callers = Executors.newFixedThreadPool(6);
+        try {
+            List<Future<HttpStatus>> calls = new ArrayList<>();
+            for (int i = 0; i < 6; i++) {
+                calls.add(callers.submit(() -> {
+                    try (ClientHttpResponse response = factory.createRequest(uri, HttpMethod.GET).execute()) {
+                        response.getBody().readAllBytes();
+                        return response.getStatusCode();
+                    }
+                }));
+            }
+            for (Future<HttpStatus> call : calls) {
+                assertThat(call.get(), equalTo(HttpStatus.OK));
+            }
+        } finally {
+            callers.shutdownNow();
+        }
+
+        assertThat(maxInFlight.get(), lessThanOrEqualTo(2));
+    }
+
+    private static class TestClient extends BaseClient {
+        TestClient(RestTemplate rest, RequestCoalescer coalescer, ServerResilience resilience) {
+            super(rest, coalescer, resilience);
+        }
+
+        @Override
+        public ResponseEntity<Object> get(String path, long userId) {
+            return super.get(path, userId);
+        }
+
+        @Override
+        public <T> ResponseEntity<Object> post(String path, long userId, T body) {
+            return super.post(path, userId, body);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package ru.practicum.shareit_gateway.client;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class RequestCoalescerTest {
+    private static final int CALLERS = 16;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ExecutorService executor = Executors.newFixedThreadPool(CALLERS);
+    private final AtomicInteger upstreamCalls = new AtomicInteger();
+
+    @AfterEach
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private double requests(boolean coalesced) {
+        return meterRegistry.counter("shareit.gateway.get.requests", "coalesced", String.valueOf(coalesced)).count();
+    }
+
+    private Supplier<ResponseEntity<Object>> blockingCall(CountDownLatch release, ResponseEntity<Object> response) {
+        return () -> {
+            upstreamCalls.incrementAndGet();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return response;
+        };
+    }
+
+    private void awaitCoalesced(double expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (requests(true) < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    @Test
+    void concurrentIdenticalRequestsShareOneCall() throws Exception {
+        RequestCoalescer coalescer = new RequestCoalescer(true, meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+        ResponseEntity<Object> response = ResponseEntity.ok("item");
+
+        List<Future<ResponseEntity<Object>>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            results.add(executor.submit(() -> coalescer.execute("1 /items/1",
+                    blockingCall(release, response))));
+        }
+        awaitCoalesced(CALLERS - 1);
+        release.countDown();
+
+        for (Future<ResponseEntity<Object>> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS), sameInstance(response));
+        }
+        assertThat(upstreamCalls.get(), equalTo(1));
+        assertThat(requests(false), equalTo(1.0));
+        assertThat(requests(true), equalTo((double) CALLERS - 1));
+    }
+
+    @Test
+    void differentKeysAreNotCoalesced() throws Exception {
+        RequestCoalescer coalescer = new RequestCoalescer(true, meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<ResponseEntity<Object>> first = executor.submit(() -> coalescer.execute("1 /items/1",
+                blockingCall(release, ResponseEntity.ok("first"))));
+        Future<ResponseEntity<Object>> second = executor.submit(() -> coalescer.execute("2 /items/1",
+                blockingCall(release, ResponseEntity.ok("second"))));
+        release.countDown();
+
+        assertThat(first.get(5, TimeUnit.SECONDS).getBody(), equalTo("first"));
+        assertThat(second.get(5, TimeUnit.SECONDS).getBody(), equalTo("second"));
+        assertThat(upstreamCalls.get(), equalTo(2));
+        assertThat(requests(true), equalTo(0.0));
+    }
+
+    @Test
+    void sequentialRequestsCallUpstreamEachTime() {
+        RequestCoalescer coalescer = new RequestCoalescer(true, meterRegistry);
+
+        coalescer.execute("1 /items/search?text=drill", () -> {
+            upstreamCalls.incrementAndGet();
+            return ResponseEntity.ok("drill");
+        });
+        coalescer.execute("1 /items/search?text=drill", () -> {
+            upstreamCalls.incrementAndGet();
+            return ResponseEntity.ok("drill");
+        });
+
+        assertThat(upstreamCalls.get(), equalTo(2));
+        assertThat(requests(false), equalTo(2.0));
+    }
+
+    @Test
+    void failureIsSharedWithWaitingCallers() throws Exception {
+        RequestCoalescer coalescer = new RequestCoalescer(true, meterRegistry);
+        CountDownLatch release = new CountDownLatch(1);
+        Supplier<ResponseEntity<Object>> failingCall = () -> {
+            upstreamCalls.incrementAndGet();
+            try {
+                release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            throw new IllegalStateException("server is unavailable");
+        };
+
+        Future<ResponseEntity<Object>> leader = executor.submit(() -> coalescer.execute("1 /items/1", failingCall));
+        awaitUpstreamCall();
+        Future<ResponseEntity<Object>> follower = executor.submit(() -> coalescer.execute("1 /items/1", failingCall));
+        awaitCoalesced(1);
+        release.countDown();
+
+        Exception leaderError = assertThrows(Exception.class, () -> leader.get(5, TimeUnit.SECONDS));
+        Exception followerError = assertThrows(Exception.class, () -> follower.get(5, TimeUnit.SECONDS));
+        assertThat(leaderError.getCause().getClass(), equalTo(IllegalStateException.class));
+        assertThat(followerError.getCause().getClass(), equalTo(IllegalStateException.class));
+        assertThat(upstreamCalls.get(), equalTo(1));
+    }
+
+    @Test
+    void disabled() {
+        RequestCoalescer coalescer = new RequestCoalescer(false, meterRegistry);
+
+        ResponseEntity<Object> response = coalescer.execute("1 /items/1", () -> {
+            upstreamCalls.incrementAndGet();
+            return ResponseEntity.ok("item");
+        });
+
+        assertThat(response.getBody(), equalTo("item"));
+        assertThat(upstreamCalls.get(), equalTo(1));
+        assertThat(requests(false), equalTo(1.0));
+    }
+
+    private void awaitUpstreamCall() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (upstreamCalls.get() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+}
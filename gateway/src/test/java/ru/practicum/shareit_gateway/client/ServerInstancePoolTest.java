@@ -0,0 +1,233 @@
+package ru.practicum.shareit_gateway.client;
+
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.client.InterceptingClientHttpRequestFactory;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+public class ServerInstancePoolTest {
+    private static final String SERVER_URL = "http://shareit-server:9090";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ResilienceProperties resilienceProperties = new ResilienceProperties();
+    private final List<StubServer> stubs = new ArrayList<>();
+
+    @AfterEach
+    void stopStubs() {
+        stubs.forEach(stub -> stub.server.stop(0));
+    }
+
+    private StubServer startStub() throws IOException {
+        StubServer stub = new StubServer();
+        stubs.add(stub);
+        return stub;
+    }
+
+    private ServerInstancePool pool(LoadBalancingProperties.Strategy strategy, StubServer... instances) {
+        LoadBalancingProperties properties = new LoadBalancingProperties();
+        properties.setStrategy(strategy);
+        for (StubServer instance : instances) {
+            properties.getInstances().add(instance.url());
+        }
+        return new ServerInstancePool(SERVER_URL, properties, resilienceProperties, new RestTemplateBuilder(),
+                meterRegistry);
+    }
+
+    private RestTemplate restTemplate(ServerInstancePool pool) {
+        return new RestTemplate(new InterceptingClientHttpRequestFactory(new SimpleClientHttpRequestFactory(),
+                List.of(new LoadBalancingInterceptor(pool))));
+    }
+
+    @Test
+    void callsAreSpreadOverInstances() throws IOException {
+        StubServer first = startStub();
+        StubServer second = startStub();
+        ServerInstancePool pool = pool(LoadBalancingProperties.Strategy.POWER_OF_TWO_CHOICES, first, second);
+        RestTemplate rest = restTemplate(pool);
+
+        for (int i = 0; i < 100; i++) {
+            assertThat(rest.getForObject(SERVER_URL + "/items/1", String.class), equalTo("items"));
+        }
+
+        assertThat(first.hits.get(), greaterThan(0));
+        assertThat(second.hits.get(), greaterThan(0));
+        assertThat(first.hits.get() + second.hits.get(), equalTo(100));
+        assertThat(meterRegistry.timer("shareit.gateway.server.requests", "instance", first.url()).count(),
+                equalTo((long) first.hits.get()));
+    }
+
+    @Test
+    void leastOutstandingInstanceIsChosen() throws IOException {
+        StubServer first = startStub();
+        StubServer second = startStub();
+        StubServer third = startStub();
+        ServerInstancePool pool = pool(LoadBalancingProperties.Strategy.LEAST_OUTSTANDING, first, second, third);
+        List<ServerInstance> instances = pool.getInstances();
+        instances.get(0).start();
+        instances.get(2).start();
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(pool.choose(), equalTo(instances.get(1)));
+        }
+    }
+
+    @Test
+    void unhealthyInstanceIsSkippedUntilItIsUp() throws IOException {
+        StubServer first = startStub();
+        StubServer second = startStub();
+        ServerInstancePool pool = pool(LoadBalancingProperties.Strategy.POWER_OF_TWO_CHOICES, first, second);
+        RestTemplate rest = restTemplate(pool);
+
+        second.healthy.set(false);
+        pool.checkHealth();
+        for (int i = 0; i < 20; i++) {
+            rest.getForObject(SERVER_URL + "/items/1", String.class);
+        }
+        assertThat(second.hits.get(), equalTo(0));
+
+        second.healthy.set(true);
+        pool.checkHealth();
+        for (int i = 0; i < 50; i++) {
+            rest.getForObject(SERVER_URL + "/items/1", String.class);
+        }
+        assertThat(second.hits.get(), greaterThan(0));
+    }
+
+    @Test
+    void instanceIsTakenOutOnConnectionFailure() throws IOException {
+        StubServer first = startStub();
+        StubServer second = startStub();
+        ServerInstancePool pool = pool(LoadBalancingProperties.Strategy.POWER_OF_TWO_CHOICES, first, second);
+        RestTemplate rest = restTemplate(pool);
+        second.server.stop(0);
+
+        int failures = 0;
+        for (int i = 0; i < 20; i++) {
+            try {
+                rest.getForObject(SERVER_URL + "/items/1", String.class);
+            } catch (ResourceAccessException e) {
+                failures++;
+            }
+        }
+
+        assertThat(failures, equalTo(1));
+        assertThat(first.hits.get(), equalTo(19));
+        assertThat(pool.getInstances().get(1).isHealthy(), equalTo(false));
+    }
+
+    @Test
+    void instanceIsTakenOutOnServerErrorsUntilItIsUp() throws IOException {
+        resilienceProperties.getCircuitBreaker().setWindowSize(4);
+        resilienceProperties.getCircuitBreaker().setMinimumCalls(4);
+        StubServer first = startStub();
+        StubServer second = startStub();
+        ServerInstancePool pool = pool(LoadBalancingProperties.Strategy.POWER_OF_TWO_CHOICES, first, second);
+        RestTemplate rest = restTemplate(pool);
+        second.failing.set(true);
+
+        int failures = 0;
+        for (int i = 0; i < 50; i++) {
+            try {
+                rest.getForObject(SERVER_URL + "/items/1", String.class);
+            } catch (HttpServerErrorException e) {
+                failures++;
+            }
+        }
+
+        assertThat(failures, equalTo(4));
+        assertThat(second.hits.get(), equalTo(4));
+        assertThat(pool.getInstances().get(1).isHealthy(), equalTo(false));
+
+        second.failing.set(false);
+        pool.checkHealth();
+        for (int i = 0; i < 50; i++) {
+            rest.getForObject(SERVER_URL + "/items/1", String.class);
+        }
+        assertThat(second.hits.get(), greaterThan(4));
+    }
+
+    @Test
+    void allInstancesAreTriedWhenNoneIsUp() throws IOException {
+        StubServer only = startStub();
+        ServerInstancePool pool = pool(LoadBalancingProperties.Strategy.POWER_OF_TWO_CHOICES, only);
+        only.healthy.set(false);
+        pool.checkHealth();
+
+        assertThat(restTemplate(pool).getForObject(SERVER_URL + "/items/1", String.class), equalTo("items"));
+    }
+
+    @Test
+    void onlyServerUrlIsRouted() throws IOException {
+        StubServer stub = startStub();
+        ServerInstancePool pool = pool(LoadBalancingProperties.Strategy.POWER_OF_TWO_CHOICES, stub);
+        ServerInstance instance = pool.choose();
+
+        assertThat(pool.route(URI.create(SERVER_URL + "/items/search?text=drill"), instance),
+                equalTo(URI.create(stub.url() + "/items/search?text=drill")));
+        assertThat(pool.route(URI.create("http://other:8080/items"), instance),
+                equalTo(URI.create("http://other:8080/items")));
+    }
+
+    @Test
+    void serverUrlIsTheOnlyInstanceByDefault() {
+        ServerInstancePool pool = new ServerInstancePool(SERVER_URL + "/", new LoadBalancingProperties(),
+                resilienceProperties, new RestTemplateBuilder(), meterRegistry);
+
+        assertThat(pool.getInstances().size(), equalTo(1));
+        assertThat(pool.choose().getUrl(), equalTo(SERVER_URL));
+        assertThat(pool.choose().getOutstanding(), equalTo(0));
+    }
+
+    private static class StubServer {
+        private final HttpServer server;
+        private final AtomicInteger hits = new AtomicInteger();
+        private final AtomicBoolean healthy = new AtomicBoolean(true);
+        private final AtomicBoolean failing = new AtomicBoolean(false);
+
+        StubServer() throws IOException {
+            server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+            server.createContext("/actuator/health", exchange -> {
+                int status = healthy.get() ? 200 : 503;
+                byte[] body = ("{\"status\":\"" + (healthy.get() ? "UP" : "DOWN") + "\"}")
+                        .getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(status, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            });
+            server.createContext("/items", exchange -> {
+                hits.incrementAndGet();
+                byte[] body = "items".getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(failing.get() ? 500 : 200, body.length);
+                try (OutputStream out = exchange.getResponseBody()) {
+                    out.write(body);
+                }
+            });
+            server.start();
+        }
+
+        String url() {
+            return "http://localhost:" + server.getAddress().getPort();
+        }
+    }
+}
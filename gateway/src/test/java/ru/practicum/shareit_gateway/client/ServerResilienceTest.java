@@ -0,0 +1,220 @@
+package ru.practicum.shareit_gateway.client;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.web.client.ResourceAccessException;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.DefaultUriBuilderFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class ServerResilienceTest {
+    private final Map<String, Deque<int[]>> scripts = new ConcurrentHashMap<>();
+    private final Map<String, AtomicInteger> hits = new ConcurrentHashMap<>();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ResilienceProperties properties = new ResilienceProperties();
+    private ExecutorService stubExecutor;
+    private HttpServer stub;
+    private ServerResilience resilience;
+
+    @BeforeEach
+    void startStub() throws IOException {
+        stubExecutor = Executors.newCachedThreadPool();
+        stub = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        stub.createContext("/", this::handle);
+        stub.setExecutor(stubExecutor);
+        stub.start();
+        properties.getCircuitBreaker().setWindowSize(4);
+        properties.getCircuitBreaker().setMinimumCalls(4);
+        properties.getCircuitBreaker().setOpenDuration(Duration.ofMillis(200));
+        properties.getRetry().setBackoff(Duration.ofMillis(1));
+    }
+
+    @AfterEach
+    void stopStub() {
+        if (resilience != null) {
+            resilience.shutdown();
+        }
+        stub.stop(0);
+        stubExecutor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        String path = exchange.getRequestURI().getPath();
+        hits.computeIfAbsent(path, key -> new AtomicInteger()).incrementAndGet();
+        Deque<int[]> script = scripts.get(path);
+        int[] answer = script != null && script.size() > 1 ? script.pollFirst() : script != null ? script.peekFirst()
+                : new int[]{200, 0};
+        try {
+            Thread.sleep(answer[1]);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        byte[] body = ("{\"status\":" + answer[0] + "}").getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(answer[0], body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private void script(String path, int[]... answers) {
+        Deque<int[]> script = new ConcurrentLinkedDeque<>();
+        for (int[] answer : answers) {
+            script.add(answer);
+        }
+        scripts.put(path, script);
+    }
+
+    private int hits(String path) {
+        AtomicInteger count = hits.get(path);
+        return count != null ? count.get() : 0;
+    }
+
+    private TestClient client() {
+        resilience = new ServerResilience(properties, meterRegistry);
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setReadTimeout(1000);
+        RestTemplate rest = new RestTemplate(requestFactory);
+        rest.setUriTemplateHandler(new DefaultUriBuilderFactory("http://localhost:"
+                + stub.getAddress().getPort() + "/items"));
+        return new TestClient(rest, new RequestCoalescer(false, meterRegistry), resilience);
+    }
+
+    @Test
+    void getIsRetriedWhenServerIsUnavailable() {
+        script("/items/1", new int[]{503, 0}, new int[]{200, 0});
+        TestClient client = client();
+
+        ResponseEntity<Object> response = client.get("/1", 1L);
+
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.OK));
+        assertThat(hits("/items/1"), equalTo(2));
+    }
+
+    @Test
+    void writeIsNotRetried() {
+        script("/items", new int[]{503, 0}, new int[]{200, 0});
+        TestClient client = client();
+
+        ResponseEntity<Object> response = client.post("", 1L, Map.of("name", "drill"));
+
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.SERVICE_UNAVAILABLE));
+        assertThat(hits("/items"), equalTo(1));
+    }
+
+    @Test
+    void clientErrorsArePassedAsTheyAre() {
+        script("/items/1", new int[]{404, 0});
+        TestClient client = client();
+
+        ResponseEntity<Object> response = client.get("/1", 1L);
+
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.NOT_FOUND));
+        assertThat(new String((byte[]) response.getBody(), StandardCharsets.UTF_8), equalTo("{\"status\":404}"));
+        assertThat(hits("/items/1"), equalTo(1));
+        assertThat(resilience.getState(HttpMethod.GET, "/items/{id}"), equalTo(CircuitBreaker.State.CLOSED));
+    }
+
+    @Test
+    void circuitOpensAndRecovers() throws InterruptedException {
+        script("/items/1", new int[]{500, 0});
+        TestClient client = client();
+
+        for (int i = 0; i < 4; i++) {
+            assertThat(client.get("/1", 1L).getStatusCode(), equalTo(HttpStatus.INTERNAL_SERVER_ERROR));
+        }
+        ResponseEntity<Object> rejected = client.get("/2", 1L);
+
+        assertThat(resilience.getState(HttpMethod.GET, "/items/{id}"), equalTo(CircuitBreaker.State.OPEN));
+        assertThat(rejected.getStatusCode(), equalTo(HttpStatus.SERVICE_UNAVAILABLE));
+        assertThat(rejected.getHeaders().getFirst("Retry-After"), equalTo("1"));
+        assertThat(hits("/items/2"), equalTo(0));
+        assertThat(client.get("", 1L).getStatusCode(), equalTo(HttpStatus.OK));
+
+        TimeUnit.MILLISECONDS.sleep(250);
+        assertThat(client.get("/2", 1L).getStatusCode(), equalTo(HttpStatus.OK));
+        assertThat(resilience.getState(HttpMethod.GET, "/items/{id}"), equalTo(CircuitBreaker.State.CLOSED));
+    }
+
+    @Test
+    void timeoutsAreRetriedThenThrown() {
+        script("/items/1", new int[]{200, 1500});
+        TestClient client = client();
+
+        assertThrows(ResourceAccessException.class, () -> client.get("/1", 1L));
+        assertThat(hits("/items/1"), equalTo(2));
+    }
+
+    @Test
+    void retriesAreBoundedByBudget() {
+        properties.getRetry().setMinBudget(1);
+        properties.getRetry().setBudgetRatio(0);
+        script("/items/1", new int[]{503, 0});
+        TestClient client = client();
+
+        client.get("/1", 1L);
+        client.get("/1", 1L);
+
+        assertThat(hits("/items/1"), equalTo(3));
+    }
+
+    @Test
+    void slowGetIsHedged() {
+        properties.getHedging().setEnabled(true);
+        properties.getHedging().setDelay(Duration.ofMillis(50));
+        script("/items/1", new int[]{200, 800}, new int[]{200, 0});
+        TestClient client = client();
+
+        long start = System.nanoTime();
+        ResponseEntity<Object> response = client.get("/1", 1L);
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertThat(response.getStatusCode(), equalTo(HttpStatus.OK));
+        assertThat(elapsed, lessThan(500L));
+        assertThat(hits("/items/1"), equalTo(2));
+        assertThat(meterRegistry.counter("shareit.gateway.hedges", "endpoint", "GET /items/{id}").count(),
+                equalTo(1.0));
+    }
+
+    private static class TestClient extends BaseClient {
+        TestClient(RestTemplate rest, RequestCoalescer coalescer, ServerResilience resilience) {
+            super(rest, coalescer, resilience);
+        }
+
+        @Override
+        public ResponseEntity<Object> get(String path, long userId) {
+            return super.get(path, userId);
+        }
+
+        @Override
+        public <T> ResponseEntity<Object> post(String path, long userId, T body) {
+            return super.post(path, userId, body);
+        }
+    }
+}
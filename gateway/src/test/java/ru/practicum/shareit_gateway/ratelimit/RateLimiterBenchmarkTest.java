@@ -0,0 +1,43 @@
+package ru.practicum.shareit_gateway.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.lessThan;
+
+/**
+ * Wall-clock cost of an admission decision with the real clock. Opt-in: run with {@code mvn test -P benchmark}.
+ */
+@Slf4j
+@Tag("benchmark")
+public class RateLimiterBenchmarkTest {
+    private static final int USERS = 1000;
+    private static final int OPERATIONS = 2_000_000;
+
+    @Test
+    void overheadIsInMicroseconds() {
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        RateLimitProperties properties = new RateLimitProperties();
+        RateLimiter limiter = new RateLimiter(properties, new ServerLatencyMonitor(properties, meterRegistry),
+                meterRegistry);
+        String[] users = new String[USERS];
+        for (int i = 0; i < users.length; i++) {
+            users[i] = String.valueOf(i);
+        }
+        for (int i = 0; i < OPERATIONS; i++) {
+            limiter.tryAcquire(users[i % users.length], EndpointClass.LISTING);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < OPERATIONS; i++) {
+            limiter.tryAcquire(users[i % users.length], EndpointClass.LISTING);
+        }
+        double nanosPerOperation = (double) (System.nanoTime() - start) / OPERATIONS;
+
+        log.info("Rate limiter: {} ns per admission decision", Math.round(nanosPerOperation));
+        assertThat(nanosPerOperation, lessThan(10_000.0));
+    }
+}
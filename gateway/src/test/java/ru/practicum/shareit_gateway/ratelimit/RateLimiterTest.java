@@ -0,0 +1,130 @@
+package ru.practicum.shareit_gateway.ratelimit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+public class RateLimiterTest {
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicLong clock = new AtomicLong(SECOND);
+    private final RateLimitProperties properties = new RateLimitProperties();
+    private final ServerLatencyMonitor latencyMonitor;
+    private final RateLimiter limiter;
+
+    RateLimiterTest() {
+        properties.setSearch(new RateLimitProperties.Limit(10, 5));
+        properties.setShedLatency(Duration.ofMillis(100));
+        latencyMonitor = new ServerLatencyMonitor(properties, meterRegistry);
+        limiter = new RateLimiter(properties, latencyMonitor, meterRegistry, clock::get);
+    }
+
+    private int admitted(String userId, EndpointClass endpointClass, int attempts) {
+        int admitted = 0;
+        for (int i = 0; i < attempts; i++) {
+            if (limiter.tryAcquire(userId, endpointClass) == 0) {
+                admitted++;
+            }
+        }
+        return admitted;
+    }
+
+    @Test
+    void burstIsAdmittedThenRejectedWithRetryHint() {
+        assertThat(admitted("1", EndpointClass.SEARCH, 5), equalTo(5));
+
+        long wait = limiter.tryAcquire("1", EndpointClass.SEARCH);
+
+        assertThat(wait, equalTo(SECOND / 10));
+        assertThat(meterRegistry.counter("shareit.gateway.rate-limit.rejected", "endpoint", "search").count(),
+                equalTo(1.0));
+    }
+
+    @Test
+    void tokensAreRefilledAtRate() {
+        admitted("1", EndpointClass.SEARCH, 5);
+
+        clock.addAndGet(SECOND / 10);
+        assertThat(admitted("1", EndpointClass.SEARCH, 5), equalTo(1));
+
+        clock.addAndGet(SECOND);
+        assertThat(admitted("1", EndpointClass.SEARCH, 10), equalTo(5));
+    }
+
+    @Test
+    void bucketsAreKeyedByUserAndEndpointClass() {
+        admitted("1", EndpointClass.SEARCH, 5);
+
+        assertThat(limiter.tryAcquire("2", EndpointClass.SEARCH), equalTo(0L));
+        assertThat(limiter.tryAcquire("1", EndpointClass.LISTING), equalTo(0L));
+        assertThat(limiter.tryAcquire("1", EndpointClass.SEARCH), greaterThan(0L));
+    }
+
+    @Test
+    void admissionIsThrottledWhileServerIsSlow() {
+        latencyMonitor.record(TimeUnit.MILLISECONDS.toNanos(400));
+        admitted("1", EndpointClass.SEARCH, 5);
+
+        clock.addAndGet(SECOND);
+
+        assertThat(latencyMonitor.loadFactor(), equalTo(4.0));
+        assertThat(admitted("1", EndpointClass.SEARCH, 10), equalTo(2));
+    }
+
+    @Test
+    void idleBucketsAreRemoved() {
+        limiter.tryAcquire("1", EndpointClass.SEARCH);
+        limiter.tryAcquire("2", EndpointClass.SEARCH);
+        admitted("3", EndpointClass.SEARCH, 5);
+
+        clock.addAndGet(SECOND / 5);
+        limiter.removeIdleBuckets();
+
+        assertThat(limiter.size(EndpointClass.SEARCH), equalTo(1));
+    }
+
+    @Test
+    void concurrentCallersGetExactlyTheBurst() throws Exception {
+        int threads = 8;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> results = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return admitted("1", EndpointClass.SEARCH, 1000);
+            }));
+        }
+        start.countDown();
+
+        int admitted = 0;
+        for (Future<Integer> result : results) {
+            admitted += result.get(10, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        assertThat(admitted, equalTo(5));
+    }
+
+    @Test
+    void endpointClasses() {
+        assertThat(EndpointClass.of("GET", "/items/search"), equalTo(EndpointClass.SEARCH));
+        assertThat(EndpointClass.of("GET", "/bookings/owner"), equalTo(EndpointClass.LISTING));
+        assertThat(EndpointClass.of("POST", "/items"), equalTo(EndpointClass.WRITE));
+        assertThat(EndpointClass.of("PATCH", "/bookings/1"), equalTo(EndpointClass.WRITE));
+    }
+}
@@ -1,7 +1,10 @@
 package ru.practicum.shareit.booking;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -11,9 +14,16 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingDtoWithItemAndBooker;
+import ru.practicum.shareit.booking.dto.BookingStateSummaryDto;
 
 import javax.validation.Valid;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 /**
@@ -24,19 +34,23 @@ import java.util.List;
 @RequiredArgsConstructor
 @RequestMapping(path = "/bookings")
 public class BookingController {
+    private static final String NDJSON_VALUE = "application/x-ndjson";
+
     private final BookingService bookingService;
+    private final OwnerBookingStream ownerBookingStream;
+    private final ObjectMapper objectMapper;
 
     @PostMapping
-    public Booking addBookingRequest(@RequestHeader("X-Sharer-User-Id") long userId,
-                                     @Valid @RequestBody BookingDto bookingDto) {
+    public BookingDtoWithItemAndBooker addBookingRequest(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                         @Valid @RequestBody BookingDto bookingDto) {
         log.info("Request for booking item {} from user {}", bookingDto.getItemId(), userId);
         return bookingService.createBooking(userId, bookingDto);
     }
 
     @PatchMapping("/{bookingId}")
-    public Booking updateItem(@RequestHeader("X-Sharer-User-Id") long userId,
-                           @PathVariable long bookingId,
-                           @RequestParam boolean approved) {
+    public BookingDtoWithItemAndBooker updateItem(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                  @PathVariable long bookingId,
+                                                  @RequestParam boolean approved) {
         if (approved) {
             log.info("Request for approving booking request {} from user {}",
                     bookingId, userId);
@@ -48,26 +62,64 @@ public class BookingController {
     }
 
     @GetMapping("/{bookingId}")
-    public Booking getBookingById(@RequestHeader("X-Sharer-User-Id") long userId, @PathVariable long bookingId) {
+    public BookingDtoWithItemAndBooker getBookingById(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                      @PathVariable long bookingId) {
         log.info("Request for get booking request {} from user {}", bookingId, userId);
         return bookingService.getBookingById(userId, bookingId);
     }
 
     @GetMapping
-    public List<Booking> getBookingsByState(@RequestHeader("X-Sharer-User-Id") long userId,
-                                            @RequestParam(required = false) String state,
-                                            @RequestParam(required = false) Integer from,
-                                            @RequestParam(required = false) Integer size)  {
+    public List<BookingDtoWithItemAndBooker> getBookingsByState(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                                @RequestParam(required = false) String state,
+                                                                @RequestParam(required = false) Integer from,
+                                                                @RequestParam(required = false) Integer size)  {
         log.info("Request for get {} bookings in state {} from user {} from {}", size, state, userId, from);
         return bookingService.getBookingByState(userId, state, from, size);
     }
 
     @GetMapping("/owner")
-    public List<Booking> getBookingsByOwnerAndState(@RequestHeader("X-Sharer-User-Id") long userId,
-                                                    @RequestParam(required = false) String state,
-                                                    @RequestParam(required = false) Integer from,
-                                                    @RequestParam(required = false) Integer size)  {
+    public List<BookingDtoWithItemAndBooker> getBookingsByOwnerAndState(
+            @RequestHeader("X-Sharer-User-Id") long userId,
+            @RequestParam(required = false) String state,
+            @RequestParam(required = false) Integer from,
+            @RequestParam(required = false) Integer size)  {
         log.info("Request for get {} bookings of user {} in state {} from {}", size, userId, state, from);
         return bookingService.getBookingsByOwnerAndState(userId, state, from, size);
     }
-}
\ No newline at end of file
+
+    @GetMapping("/summary")
+    public BookingStateSummaryDto getBookingSummary(@RequestHeader("X-Sharer-User-Id") long userId) {
+        log.info("Request for get bookings summary by states from user {}", userId);
+        return bookingService.getBookingSummary(userId);
+    }
+
+    @GetMapping("/owner/summary")
+    public BookingStateSummaryDto getBookingSummaryByOwner(@RequestHeader("X-Sharer-User-Id") long userId) {
+        log.info("Request for get bookings summary by states of user {} items", userId);
+        return bookingService.getBookingSummaryByOwner(userId);
+    }
+
+    @GetMapping(value = "/owner/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamBookingsByOwner(@RequestHeader("X-Sharer-User-Id") long userId) {
+        log.info("Request for stream of new bookings of user {} items", userId);
+        return ownerBookingStream.subscribe(userId);
+    }
+
+    @GetMapping(value = "/export", produces = NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportBookings(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                                @RequestParam(defaultValue = "BOOKER") String role) {
+        log.info("Request for export of bookings of user {} as {}", userId, role);
+        StreamingResponseBody body = out -> bookingService.exportBookings(userId, role,
+                booking -> writeLine(out, booking));
+        return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON_VALUE)).body(body);
+    }
+
+    private void writeLine(OutputStream out, BookingDto booking) {
+        try {
+            out.write(objectMapper.writeValueAsBytes(booking));
+            out.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
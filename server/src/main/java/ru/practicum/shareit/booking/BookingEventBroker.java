@@ -0,0 +1,199 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.BookingEventDto;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Hands published booking events to long-polling and SSE consumers and to listeners of this instance.
+ * Events are picked up by tailing the event log by offset, so consumers see events published by the relay
+ * of any instance. A consumer that fell behind the tailed events reads the gap from the event log first,
+ * so every consumer receives all events after its offset exactly once and in order.
+ */
+@Component
+@RequiredArgsConstructor
+public class BookingEventBroker {
+    private static final int BATCH_SIZE = 500;
+
+    private final BookingEventService eventService;
+    private final SseSender sseSender;
+    private final Set<Poll> polls = ConcurrentHashMap.newKeySet();
+    private final Map<SseSender.Channel, Subscriber> subscribers = new ConcurrentHashMap<>();
+    private final List<Consumer<List<BookingEventDto>>> listeners = new CopyOnWriteArrayList<>();
+    // offset of the last tailed event, negative until the first consumer arrives
+    private final AtomicLong lastSeenOffset = new AtomicLong(-1);
+
+    @Value("${shareit.booking-events.sse-timeout:1800000}")
+    private long sseTimeout;
+
+    public DeferredResult<List<BookingEventDto>> poll(long offset, int limit, long timeout) {
+        startTailing();
+        DeferredResult<List<BookingEventDto>> result = new DeferredResult<>(timeout, List.of());
+        List<BookingEventDto> events = eventService.getEvents(offset, limit);
+        if (!events.isEmpty()) {
+            result.setResult(events);
+            return result;
+        }
+        Poll poll = new Poll(offset, limit, result);
+        polls.add(poll);
+        result.onCompletion(() -> polls.remove(poll));
+        // events tailed between the first read and the registration
+        events = eventService.getEvents(offset, limit);
+        if (!events.isEmpty()) {
+            result.setResult(events);
+        }
+        return result;
+    }
+
+    public SseEmitter subscribe(long offset) {
+        startTailing();
+        SseEmitter emitter = new SseEmitter(sseTimeout);
+        Subscriber subscriber = new Subscriber(offset);
+        SseSender.Channel channel = sseSender.open(emitter, subscribers::remove);
+        subscribers.put(channel, subscriber);
+        emitter.onCompletion(() -> unsubscribe(channel));
+        emitter.onTimeout(() -> unsubscribe(channel));
+        emitter.onError(e -> unsubscribe(channel));
+        channel.send(sending -> catchUp(subscriber, sending));
+        return emitter;
+    }
+
+    /**
+     * Hands every tailed batch to the listener on the tailing thread, from the moment tailing starts.
+     */
+    public void addListener(Consumer<List<BookingEventDto>> listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Reads the events published since the previous round, by the relay of any instance, and hands them out.
+     */
+    @Scheduled(fixedDelayString = "${shareit.booking-events.tail-interval:200}")
+    public void tailEvents() {
+        long offset = lastSeenOffset.get();
+        if (offset < 0) {
+            return;
+        }
+        List<BookingEventDto> events;
+        do {
+            events = eventService.getEvents(offset, BATCH_SIZE);
+            if (!events.isEmpty()) {
+                offset = events.get(events.size() - 1).getOffset();
+                lastSeenOffset.set(offset);
+                publish(events);
+            }
+        } while (events.size() == BATCH_SIZE);
+    }
+
+    /**
+     * Keeps idle SSE connections from being closed by proxies, like the owner stream does.
+     */
+    @Scheduled(fixedDelayString = "${shareit.booking-events.heartbeat-interval:30000}")
+    public void sendHeartbeats() {
+        subscribers.keySet().forEach(channel ->
+                channel.send(emitter -> emitter.send(SseEmitter.event().comment("heartbeat"))));
+    }
+
+    /**
+     * Called before a consumer registers: events before the tailed ones are then already in the log
+     * when the consumer reads its gap.
+     */
+    public void startTailing() {
+        if (lastSeenOffset.get() < 0) {
+            lastSeenOffset.compareAndSet(-1, eventService.getLastOffset());
+        }
+    }
+
+    private void publish(List<BookingEventDto> events) {
+        polls.forEach(poll -> complete(poll, events));
+        subscribers.forEach((channel, subscriber) -> channel.send(sending -> push(subscriber, sending, events)));
+        listeners.forEach(listener -> listener.accept(events));
+    }
+
+    private void unsubscribe(SseSender.Channel channel) {
+        channel.close();
+        subscribers.remove(channel);
+    }
+
+    private void complete(Poll poll, List<BookingEventDto> events) {
+        List<BookingEventDto> newEvents = events.stream()
+                .filter(event -> event.getOffset() > poll.offset)
+                .limit(poll.limit)
+                .collect(Collectors.toList());
+        if (newEvents.isEmpty()) {
+            return;
+        }
+        if (newEvents.get(0).getOffset() != poll.offset + 1) {
+            newEvents = eventService.getEvents(poll.offset, poll.limit);
+        }
+        poll.result.setResult(newEvents);
+    }
+
+    private void push(Subscriber subscriber, SseEmitter emitter, List<BookingEventDto> events) throws IOException {
+        for (BookingEventDto event : events) {
+            if (event.getOffset() <= subscriber.offset) {
+                continue;
+            }
+            if (event.getOffset() != subscriber.offset + 1) {
+                catchUp(subscriber, emitter);
+                return;
+            }
+            send(subscriber, emitter, event);
+        }
+    }
+
+    private void catchUp(Subscriber subscriber, SseEmitter emitter) throws IOException {
+        List<BookingEventDto> events;
+        do {
+            events = eventService.getEvents(subscriber.offset, BATCH_SIZE);
+            for (BookingEventDto event : events) {
+                send(subscriber, emitter, event);
+            }
+        } while (events.size() == BATCH_SIZE);
+    }
+
+    private void send(Subscriber subscriber, SseEmitter emitter, BookingEventDto event) throws IOException {
+        emitter.send(SseEmitter.event()
+                .id(String.valueOf(event.getOffset()))
+                .name(event.getType().name())
+                .data(event));
+        subscriber.offset = event.getOffset();
+    }
+
+    private static final class Poll {
+        private final long offset;
+        private final int limit;
+        private final DeferredResult<List<BookingEventDto>> result;
+
+        private Poll(long offset, int limit, DeferredResult<List<BookingEventDto>> result) {
+            this.offset = offset;
+            this.limit = limit;
+            this.result = result;
+        }
+    }
+
+    /**
+     * Only touched by writes of its channel, which run one at a time.
+     */
+    private static final class Subscriber {
+        private long offset;
+
+        private Subscriber(long offset) {
+            this.offset = offset;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.BookingEventDto;
+import ru.practicum.shareit.exception.InvalidPathVariableException;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/bookings/events")
+@RequiredArgsConstructor
+@Slf4j
+public class BookingEventController {
+    private static final long MAX_POLL_TIMEOUT = 60_000;
+
+    private final BookingEventBroker eventBroker;
+
+    @GetMapping
+    public DeferredResult<List<BookingEventDto>> getEvents(@RequestParam(defaultValue = "0") long offset,
+                                                           @RequestParam(defaultValue = "100") int limit,
+                                                           @RequestParam(defaultValue = "30000") long timeout) {
+        if (offset < 0 || limit <= 0 || timeout < 0 || timeout > MAX_POLL_TIMEOUT) {
+            throw new InvalidPathVariableException("Incorrect poll parameters");
+        }
+        log.info("Request for get {} booking events after offset {}", limit, offset);
+        return eventBroker.poll(offset, limit, timeout);
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEvents(@RequestParam(required = false) Long offset,
+                                   @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        long from = offset != null ? offset : lastEventId != null ? lastEventId : 0;
+        if (from < 0) {
+            throw new InvalidPathVariableException("Incorrect offset");
+        }
+        log.info("Request for booking events stream after offset {}", from);
+        return eventBroker.subscribe(from);
+    }
+}
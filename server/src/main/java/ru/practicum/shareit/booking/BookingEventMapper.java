@@ -0,0 +1,40 @@
+package ru.practicum.shareit.booking;
+
+import ru.practicum.shareit.booking.dto.BookingEventDto;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+public class BookingEventMapper {
+    public static BookingEvent toBookingEvent(Booking booking, BookingEventType type, LocalDateTime created) {
+        return BookingEvent.builder()
+                .type(type)
+                .bookingId(booking.getId())
+                .itemId(booking.getItem() != null ? booking.getItem().getId() : null)
+                .bookerId(booking.getUser() != null ? booking.getUser().getId() : null)
+                .ownerId(booking.getOwnerId())
+                .status(booking.getStatus())
+                .created(created)
+                .build();
+    }
+
+    public static BookingEventDto toBookingEventDto(BookingEvent event) {
+        return BookingEventDto.builder()
+                .offset(event.getOffset())
+                .type(event.getType())
+                .bookingId(event.getBookingId())
+                .itemId(event.getItemId())
+                .bookerId(event.getBookerId())
+                .ownerId(event.getOwnerId())
+                .status(event.getStatus())
+                .created(event.getCreated())
+                .build();
+    }
+
+    public static List<BookingEventDto> toBookingEventDto(List<BookingEvent> events) {
+        return events.stream()
+                .map(BookingEventMapper::toBookingEventDto)
+                .collect(Collectors.toList());
+    }
+}
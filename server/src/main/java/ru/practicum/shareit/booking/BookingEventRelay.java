@@ -0,0 +1,31 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.booking.dto.BookingEventDto;
+
+import java.util.List;
+
+/**
+ * Publishes committed outbox events by assigning their offsets. Relays of all server instances may run,
+ * one of them holds the relay lock at a time and the others skip the round. Subscribers are served by
+ * BookingEventBroker of each instance, which tails the published events.
+ */
+@Component
+@RequiredArgsConstructor
+public class BookingEventRelay {
+    private final BookingEventService eventService;
+
+    @Value("${shareit.booking-events.relay-batch-size:500}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${shareit.booking-events.relay-interval:200}")
+    public void publishPendingEvents() {
+        List<BookingEventDto> events;
+        do {
+            events = eventService.publishPendingEvents(batchSize);
+        } while (events.size() == batchSize);
+    }
+}
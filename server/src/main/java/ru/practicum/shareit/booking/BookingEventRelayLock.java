@@ -0,0 +1,24 @@
+package ru.practicum.shareit.booking;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * Single row locked by the relay while it assigns offsets, so relays of several server instances take turns.
+ */
+@Data
+@Entity
+@Table(name = "booking_event_relay_lock", schema = "public")
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookingEventRelayLock {
+    public static final int ID = 1;
+
+    @Id
+    private Integer id;
+}
@@ -0,0 +1,23 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.util.Optional;
+
+import static org.hibernate.cfg.AvailableSettings.JPA_LOCK_TIMEOUT;
+import static ru.practicum.shareit.booking.BookingRepository.SKIP_LOCKED;
+
+@Repository
+public interface BookingEventRelayLockRepository extends JpaRepository<BookingEventRelayLock, Integer> {
+    /**
+     * Empty while the relay of another instance holds the lock, that relay publishes the pending events.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = JPA_LOCK_TIMEOUT, value = SKIP_LOCKED))
+    Optional<BookingEventRelayLock> findLockedById(int id);
+}
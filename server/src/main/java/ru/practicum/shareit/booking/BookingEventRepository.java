@@ -0,0 +1,27 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface BookingEventRepository extends JpaRepository<BookingEvent, Long> {
+    List<BookingEvent> findByOffsetIsNullOrderByIdAsc(Pageable page);
+
+    List<BookingEvent> findByOffsetGreaterThanOrderByOffsetAsc(long offset, Pageable page);
+
+    @Query("select coalesce(max(e.offset), 0) from BookingEvent e")
+    long findMaxOffset();
+
+    @Modifying
+    @Query("insert into BookingEvent (type, bookingId, itemId, bookerId, ownerId, status, created) " +
+            "select :type, b.id, b.item.id, b.user.id, b.ownerId, b.status, :created " +
+            "from Booking b where b.id in :bookingIds")
+    int insertEvents(Collection<Long> bookingIds, BookingEventType type, LocalDateTime created);
+}
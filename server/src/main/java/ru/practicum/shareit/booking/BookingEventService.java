@@ -0,0 +1,20 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.stereotype.Service;
+import ru.practicum.shareit.booking.dto.BookingEventDto;
+
+import java.util.Collection;
+import java.util.List;
+
+@Service
+public interface BookingEventService {
+    void recordEvent(Booking booking, BookingEventType type);
+
+    void recordEvents(Collection<Long> bookingIds, BookingEventType type);
+
+    List<BookingEventDto> publishPendingEvents(int batchSize);
+
+    List<BookingEventDto> getEvents(long offset, int limit);
+
+    long getLastOffset();
+}
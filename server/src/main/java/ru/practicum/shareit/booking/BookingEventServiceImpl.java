@@ -0,0 +1,66 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingEventDto;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class BookingEventServiceImpl implements BookingEventService {
+    private final BookingEventRepository eventRepository;
+    private final BookingEventRelayLockRepository relayLockRepository;
+    private final Clock clock;
+
+    @Override
+    @Transactional
+    public void recordEvent(Booking booking, BookingEventType type) {
+        eventRepository.save(BookingEventMapper.toBookingEvent(booking, type, LocalDateTime.now(clock)));
+    }
+
+    @Override
+    @Transactional
+    public void recordEvents(Collection<Long> bookingIds, BookingEventType type) {
+        eventRepository.insertEvents(bookingIds, type, LocalDateTime.now(clock));
+    }
+
+    @Override
+    @Transactional
+    public List<BookingEventDto> publishPendingEvents(int batchSize) {
+        // offsets are assigned under the lock, so they are consecutive and committed in order on every instance
+        if (relayLockRepository.findLockedById(BookingEventRelayLock.ID).isEmpty()) {
+            return List.of();
+        }
+        List<BookingEvent> events = eventRepository.findByOffsetIsNullOrderByIdAsc(PageRequest.of(0, batchSize));
+        if (events.isEmpty()) {
+            return List.of();
+        }
+        long offset = eventRepository.findMaxOffset();
+        for (BookingEvent event : events) {
+            event.setOffset(++offset);
+        }
+        eventRepository.saveAll(events);
+        log.info("{} booking events are published up to offset {}", events.size(), offset);
+        return BookingEventMapper.toBookingEventDto(events);
+    }
+
+    @Override
+    public List<BookingEventDto> getEvents(long offset, int limit) {
+        return BookingEventMapper.toBookingEventDto(eventRepository
+                .findByOffsetGreaterThanOrderByOffsetAsc(offset, PageRequest.of(0, limit)));
+    }
+
+    @Override
+    public long getLastOffset() {
+        return eventRepository.findMaxOffset();
+    }
+}
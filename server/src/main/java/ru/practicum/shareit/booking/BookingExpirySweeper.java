@@ -0,0 +1,49 @@
+package ru.practicum.shareit.booking;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Rejects waiting bookings whose start has passed, one batch per transaction.
+ * Batches are claimed with SKIP LOCKED, so the sweeper may run on every server node at once.
+ * Booking summaries of the affected items are recalculated once all batches are committed.
+ */
+@Component
+public class BookingExpirySweeper {
+    private static final String EXPIRED_METRIC = "shareit.booking-expiry.expired";
+    private static final String BATCHES_METRIC = "shareit.booking-expiry.batches";
+    private static final String RUN_METRIC = "shareit.booking-expiry.run";
+
+    private final BookingService bookingService;
+    private final ItemBookingSummarySweeper summarySweeper;
+    private final MeterRegistry meterRegistry;
+    private final int batchSize;
+
+    public BookingExpirySweeper(BookingService bookingService, ItemBookingSummarySweeper summarySweeper,
+                                MeterRegistry meterRegistry,
+                                @Value("${shareit.booking-expiry.batch-size:100}") int batchSize) {
+        this.bookingService = bookingService;
+        this.summarySweeper = summarySweeper;
+        this.meterRegistry = meterRegistry;
+        this.batchSize = Math.max(batchSize, 1);
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.booking-expiry.interval:60000}")
+    public void expireStaleBookings() {
+        meterRegistry.timer(RUN_METRIC).record(() -> {
+            int expired;
+            int total = 0;
+            do {
+                expired = bookingService.expireStaleBookings(batchSize);
+                total += expired;
+                meterRegistry.counter(BATCHES_METRIC).increment();
+                meterRegistry.counter(EXPIRED_METRIC).increment(expired);
+            } while (expired == batchSize);
+            if (total > 0) {
+                summarySweeper.refreshStaleSummaries();
+            }
+        });
+    }
+}
@@ -1,8 +1,15 @@
 package ru.practicum.shareit.booking;
 
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingDtoWithItemAndBooker;
 import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.item.ItemMapper;
 import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserMapper;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
 
 public class BookingMapper {
     public static BookingDto toBookingDto(Booking booking) {
@@ -19,6 +26,23 @@ public class BookingMapper {
                 .build();
     }
 
+    public static BookingDtoWithItemAndBooker toBookingDtoWithItemAndBooker(Booking booking) {
+        return BookingDtoWithItemAndBooker.builder()
+                .id(booking.getId())
+                .startDate(booking.getStartDate())
+                .endDate(booking.getEndDate())
+                .status(booking.getStatus())
+                .item(ItemMapper.toItemDtoWithOwner(booking.getItem()))
+                .user(UserMapper.toUserDto(booking.getUser()))
+                .build();
+    }
+
+    public static List<BookingDtoWithItemAndBooker> toBookingDtoWithItemAndBooker(List<Booking> bookings) {
+        return bookings.stream()
+                .map(BookingMapper::toBookingDtoWithItemAndBooker)
+                .collect(Collectors.toList());
+    }
+
     public static Booking toBooking(long bookingId, BookingDto bookingDto, User user, Item item) {
         return Booking.builder()
                 .id(bookingId)
@@ -27,6 +51,7 @@ public class BookingMapper {
                 .status(bookingDto.getStatus())
                 .user(user)
                 .item(item)
+                .ownerId(item != null && item.getUser() != null ? item.getUser().getId() : null)
                 .build();
     }
 
@@ -37,6 +62,57 @@ public class BookingMapper {
                 .status(bookingDto.getStatus())
                 .user(user)
                 .item(item)
+                .ownerId(item != null && item.getUser() != null ? item.getUser().getId() : null)
+                .build();
+    }
+
+    public static ItemBookingSummary toItemBookingSummary(long itemId,
+                                                          Booking lastBooking,
+                                                          Booking nextBooking,
+                                                          LocalDateTime refreshAt) {
+        return ItemBookingSummary.builder()
+                .itemId(itemId)
+                .lastBookingId(lastBooking != null ? lastBooking.getId() : null)
+                .lastBookerId(lastBooking != null && lastBooking.getUser() != null ?
+                        lastBooking.getUser().getId() : null)
+                .lastStartDate(lastBooking != null ? lastBooking.getStartDate() : null)
+                .lastEndDate(lastBooking != null ? lastBooking.getEndDate() : null)
+                .lastStatus(lastBooking != null ? lastBooking.getStatus() : null)
+                .nextBookingId(nextBooking != null ? nextBooking.getId() : null)
+                .nextBookerId(nextBooking != null && nextBooking.getUser() != null ?
+                        nextBooking.getUser().getId() : null)
+                .nextStartDate(nextBooking != null ? nextBooking.getStartDate() : null)
+                .nextEndDate(nextBooking != null ? nextBooking.getEndDate() : null)
+                .nextStatus(nextBooking != null ? nextBooking.getStatus() : null)
+                .refreshAt(refreshAt)
+                .build();
+    }
+
+    public static BookingDto toLastBookingDto(ItemBookingSummary summary) {
+        if (summary == null || summary.getLastBookingId() == null) {
+            return null;
+        }
+        return BookingDto.builder()
+                .id(summary.getLastBookingId())
+                .startDate(summary.getLastStartDate())
+                .endDate(summary.getLastEndDate())
+                .status(summary.getLastStatus())
+                .itemId(summary.getItemId())
+                .userId(summary.getLastBookerId())
+                .build();
+    }
+
+    public static BookingDto toNextBookingDto(ItemBookingSummary summary) {
+        if (summary == null || summary.getNextBookingId() == null) {
+            return null;
+        }
+        return BookingDto.builder()
+                .id(summary.getNextBookingId())
+                .startDate(summary.getNextStartDate())
+                .endDate(summary.getNextEndDate())
+                .status(summary.getNextStatus())
+                .itemId(summary.getItemId())
+                .userId(summary.getNextBookerId())
                 .build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,128 @@
+package ru.practicum.shareit.booking;
+
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.dto.BookingDtoWithItemAndBooker;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Bounded LRU cache of state-filtered booking listings.
+ * Entries live for one time bucket at most and are dropped for a user as soon as one of their bookings changes.
+ */
+@Component
+public class BookingQueryCache {
+    private final int maxSize;
+    private final long bucketMillis;
+    // both guarded by entries; a user's counter lives only while the user has entries or loads in flight
+    private final Map<Long, Long> userVersions = new HashMap<>();
+    private final Map<Long, Integer> userHolds = new HashMap<>();
+    private final Map<Key, List<BookingDtoWithItemAndBooker>> entries;
+
+    public BookingQueryCache(@Value("${shareit.booking-cache.max-size:1000}") int maxSize,
+                             @Value("${shareit.booking-cache.time-bucket:5s}") Duration timeBucket) {
+        this.maxSize = maxSize;
+        this.bucketMillis = Math.max(timeBucket.toMillis(), 1);
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, List<BookingDtoWithItemAndBooker>> eldest) {
+                if (size() <= BookingQueryCache.this.maxSize) {
+                    return false;
+                }
+                release(eldest.getKey().getUserId());
+                return true;
+            }
+        };
+    }
+
+    public List<BookingDtoWithItemAndBooker> get(long userId, BookingRole role, String state, Integer from,
+                                                 Integer size, LocalDateTime now,
+                                                 Supplier<List<BookingDtoWithItemAndBooker>> loader) {
+        if (maxSize <= 0) {
+            return loader.get();
+        }
+        Key key;
+        List<BookingDtoWithItemAndBooker> bookings;
+        synchronized (entries) {
+            key = new Key(userId, userVersions.getOrDefault(userId, 0L), role, state, from, size, toBucket(now));
+            bookings = entries.get(key);
+            if (bookings != null) {
+                return bookings;
+            }
+            hold(userId);
+        }
+        List<BookingDtoWithItemAndBooker> loaded = null;
+        try {
+            loaded = Collections.unmodifiableList(loader.get());
+            return loaded;
+        } finally {
+            synchronized (entries) {
+                // the hold of the load passes to the new entry
+                if (loaded == null || entries.put(key, loaded) != null) {
+                    release(userId);
+                }
+            }
+        }
+    }
+
+    public void evictUsers(long... userIds) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    incrementVersions(userIds);
+                }
+            });
+        } else {
+            incrementVersions(userIds);
+        }
+    }
+
+    private void incrementVersions(long... userIds) {
+        synchronized (entries) {
+            for (long userId : userIds) {
+                // without entries or loads of the user nothing can be served stale, so no counter is needed
+                if (userHolds.containsKey(userId)) {
+                    userVersions.merge(userId, 1L, Long::sum);
+                }
+            }
+        }
+    }
+
+    private void hold(long userId) {
+        userHolds.merge(userId, 1, Integer::sum);
+    }
+
+    private void release(long userId) {
+        if (userHolds.merge(userId, -1, Integer::sum) <= 0) {
+            userHolds.remove(userId);
+            userVersions.remove(userId);
+        }
+    }
+
+    private long toBucket(LocalDateTime now) {
+        return now.toInstant(ZoneOffset.UTC).toEpochMilli() / bucketMillis;
+    }
+
+    @Data
+    private static class Key {
+        private final long userId;
+        private final long userVersion;
+        private final BookingRole role;
+        private final String state;
+        private final Integer from;
+        private final Integer size;
+        private final long bucket;
+    }
+}
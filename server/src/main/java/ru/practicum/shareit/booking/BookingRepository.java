@@ -2,16 +2,55 @@ package ru.practicum.shareit.booking;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingStateSummaryDto;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import static org.hibernate.cfg.AvailableSettings.JPA_LOCK_TIMEOUT;
+
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
-    Optional<Booking> findByItemUserIdAndId(long userId, long bookingId);
+    /**
+     * LockOptions.SKIP_LOCKED, rendered as FOR UPDATE SKIP LOCKED by the PostgreSQL dialect.
+     */
+    String SKIP_LOCKED = "-2";
+
+    boolean existsByOwnerIdAndId(long userId, long bookingId);
+
+    @EntityGraph(Booking.DETAILS)
+    Optional<Booking> findDetailedById(long bookingId);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Booking b set b.status = :status, b.version = b.version + 1 " +
+            "where b.id = :bookingId and b.ownerId = :ownerId and b.status = :expected")
+    int updateStatus(long bookingId, long ownerId, BookingStatus expected, BookingStatus status);
+
+    /**
+     * Rows locked by another transaction are skipped, so concurrent callers claim disjoint batches.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = JPA_LOCK_TIMEOUT, value = SKIP_LOCKED))
+    List<Booking> findByStatusAndStartDateBeforeOrderByStartDateAsc(BookingStatus status, LocalDateTime now,
+                                                                    Pageable page);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update Booking b set b.status = :status, b.version = b.version + 1 " +
+            "where b.id in :bookingIds and b.status = :expected")
+    int updateStatus(Collection<Long> bookingIds, BookingStatus expected, BookingStatus status);
 
     Optional<Booking> findTopByItemIdAndStartDateBeforeOrderByStartDateDesc(long itemId, LocalDateTime now);
 
@@ -19,57 +58,80 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
                                                                                      LocalDateTime now,
                                                                                      List<BookingStatus> state);
 
-    List<Booking> findByUserIdOrderByStartDateDesc(long userId);
+    Optional<Booking> findTopByItemIdAndStartDateAfterOrderByStartDateAsc(long itemId, LocalDateTime now);
 
+    @EntityGraph(Booking.DETAILS)
     Page<Booking> findByUserIdOrderByStartDateDesc(long userId, Pageable page);
 
-    List<Booking> findByUserIdAndStatusIsOrderByStartDateDesc(long userId, BookingStatus state);
-
+    @EntityGraph(Booking.DETAILS)
     Page<Booking> findByUserIdAndStatusIsOrderByStartDateDesc(long userId, BookingStatus state, Pageable page);
 
-    List<Booking> findByUserIdAndStatusIsAndEndDateBeforeOrderByStartDateDesc(long userId,
-                                                                              BookingStatus state,
-                                                                              LocalDateTime nowDate);
-
-    List<Booking> findByUserIdAndStartDateAfterOrderByStartDateDesc(long userId, LocalDateTime nowDate);
+    boolean existsByUserIdAndItemIdAndStatusAndEndDateBefore(long userId, long itemId, BookingStatus state,
+                                                             LocalDateTime nowDate);
 
+    @EntityGraph(Booking.DETAILS)
     Page<Booking> findByUserIdAndStartDateAfterOrderByStartDateDesc(long userId, LocalDateTime nowDate, Pageable page);
 
-    List<Booking> findByUserIdAndEndDateBeforeOrderByStartDateDesc(long userId, LocalDateTime nowDate);
-
+    @EntityGraph(Booking.DETAILS)
     Page<Booking> findByUserIdAndEndDateBeforeOrderByStartDateDesc(long userId, LocalDateTime nowDate, Pageable page);
 
-    List<Booking> findByUserIdAndEndDateAfterAndStartDateBeforeOrderByIdAsc(long userId,
-                                                                            LocalDateTime endNowDate,
-                                                                            LocalDateTime startNowDate);
-
+    @EntityGraph(Booking.DETAILS)
     Page<Booking> findByUserIdAndEndDateAfterAndStartDateBeforeOrderByIdAsc(long userId,
                                                                             LocalDateTime endNowDate,
                                                                             LocalDateTime startNowDate,
                                                                             Pageable page);
 
-    List<Booking> findByItemUserIdOrderByStartDateDesc(long userId);
-
-    Page<Booking> findByItemUserIdOrderByStartDateDesc(long userId, Pageable page);
+    @EntityGraph(Booking.DETAILS)
+    Page<Booking> findByOwnerIdOrderByStartDateDesc(long userId, Pageable page);
 
-    List<Booking> findByItemUserIdAndStatusIsOrderByStartDateDesc(long userId, BookingStatus state);
+    @EntityGraph(Booking.DETAILS)
+    Page<Booking> findByOwnerIdAndStatusIsOrderByStartDateDesc(long userId, BookingStatus state, Pageable page);
 
-    Page<Booking> findByItemUserIdAndStatusIsOrderByStartDateDesc(long userId, BookingStatus state, Pageable page);
+    @EntityGraph(Booking.DETAILS)
+    Page<Booking> findByOwnerIdAndStartDateAfterOrderByStartDateDesc(long userId, LocalDateTime nowDate, Pageable page);
 
-    List<Booking> findByItemUserIdAndStartDateAfterOrderByStartDateDesc(long userId, LocalDateTime nowDate);
+    @EntityGraph(Booking.DETAILS)
+    Page<Booking> findByOwnerIdAndEndDateBeforeOrderByStartDateDesc(long userId, LocalDateTime nowDate, Pageable page);
 
-    Page<Booking> findByItemUserIdAndStartDateAfterOrderByStartDateDesc(long userId, LocalDateTime nowDate, Pageable page);
-
-    List<Booking> findByItemUserIdAndEndDateBeforeOrderByStartDateDesc(long userId, LocalDateTime nowDate);
-
-    Page<Booking> findByItemUserIdAndEndDateBeforeOrderByStartDateDesc(long userId, LocalDateTime nowDate, Pageable page);
-
-    List<Booking> findByItemUserIdAndEndDateAfterAndStartDateBeforeOrderByIdAsc(long userId,
-                                                                                LocalDateTime endNowDate,
-                                                                                LocalDateTime startNowDate);
-
-    Page<Booking> findByItemUserIdAndEndDateAfterAndStartDateBeforeOrderByIdAsc(long userId,
+    @EntityGraph(Booking.DETAILS)
+    Page<Booking> findByOwnerIdAndEndDateAfterAndStartDateBeforeOrderByIdAsc(long userId,
                                                                                 LocalDateTime endNowDate,
                                                                                 LocalDateTime startNowDate,
                                                                                 Pageable page);
-}
\ No newline at end of file
+
+    @Query("select new ru.practicum.shareit.booking.dto.BookingStateSummaryDto(count(b), " +
+            "sum(case when b.startDate < :now and b.endDate > :now then 1 else 0 end), " +
+            "sum(case when b.endDate < :now then 1 else 0 end), " +
+            "sum(case when b.startDate > :now then 1 else 0 end), " +
+            "sum(case when b.status = ru.practicum.shareit.booking.BookingStatus.WAITING then 1 else 0 end), " +
+            "sum(case when b.status = ru.practicum.shareit.booking.BookingStatus.REJECTED then 1 else 0 end)) " +
+            "from Booking b where b.user.id = :userId")
+    BookingStateSummaryDto countByUserIdGroupByState(long userId, LocalDateTime now);
+
+    @Query("select new ru.practicum.shareit.booking.dto.BookingStateSummaryDto(count(b), " +
+            "sum(case when b.startDate < :now and b.endDate > :now then 1 else 0 end), " +
+            "sum(case when b.endDate < :now then 1 else 0 end), " +
+            "sum(case when b.startDate > :now then 1 else 0 end), " +
+            "sum(case when b.status = ru.practicum.shareit.booking.BookingStatus.WAITING then 1 else 0 end), " +
+            "sum(case when b.status = ru.practicum.shareit.booking.BookingStatus.REJECTED then 1 else 0 end)) " +
+            "from Booking b where b.ownerId = :userId")
+    BookingStateSummaryDto countByOwnerIdGroupByState(long userId, LocalDateTime now);
+
+    @Transactional(readOnly = true)
+    @Query("select new ru.practicum.shareit.booking.dto.BookingDto(b.id, b.startDate, b.endDate, " +
+            "b.item.id, b.user.id, b.status) from Booking b where b.user.id = :userId " +
+            "and (b.startDate < :startDate or (b.startDate = :startDate and b.id < :id)) " +
+            "order by b.startDate desc, b.id desc")
+    List<BookingDto> findBookingDtoByUserIdAfter(long userId, LocalDateTime startDate, long id, Pageable pageable);
+
+    @Transactional(readOnly = true)
+    @Query("select new ru.practicum.shareit.booking.dto.BookingDto(b.id, b.startDate, b.endDate, " +
+            "b.item.id, b.user.id, b.status) from Booking b where b.ownerId = :userId " +
+            "and (b.startDate < :startDate or (b.startDate = :startDate and b.id < :id)) " +
+            "order by b.startDate desc, b.id desc")
+    List<BookingDto> findBookingDtoByOwnerIdAfter(long userId, LocalDateTime startDate, long id, Pageable pageable);
+
+    @Query("select new ru.practicum.shareit.booking.dto.BookingDto(b.id, b.startDate, b.endDate, " +
+            "b.item.id, b.user.id, b.status) from Booking b where b.id in :bookingIds order by b.id")
+    List<BookingDto> findBookingDtoByIdIn(Collection<Long> bookingIds);
+}
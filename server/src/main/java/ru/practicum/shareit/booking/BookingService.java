@@ -1,17 +1,32 @@
 package ru.practicum.shareit.booking;
 
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingDtoWithItemAndBooker;
+import ru.practicum.shareit.booking.dto.BookingStateSummaryDto;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface BookingService {
-    Booking createBooking(long userId, BookingDto bookingDto);
+    BookingDtoWithItemAndBooker createBooking(long userId, BookingDto bookingDto);
 
-    Booking updateBooking(long userId, long bookingId, boolean approved);
+    BookingDtoWithItemAndBooker updateBooking(long userId, long bookingId, boolean approved);
 
-    Booking getBookingById(long userId, long bookingId);
+    BookingDtoWithItemAndBooker getBookingById(long userId, long bookingId);
 
-    List<Booking> getBookingByState(long userId, String state, Integer from, Integer size);
+    List<BookingDtoWithItemAndBooker> getBookingByState(long userId, String state, Integer from, Integer size);
 
-    List<Booking> getBookingsByOwnerAndState(long userId, String state, Integer from, Integer size);
+    List<BookingDtoWithItemAndBooker> getBookingsByOwnerAndState(long userId, String state, Integer from,
+                                                                 Integer size);
+
+    BookingStateSummaryDto getBookingSummary(long userId);
+
+    BookingStateSummaryDto getBookingSummaryByOwner(long userId);
+
+    void exportBookings(long userId, String role, Consumer<BookingDto> consumer);
+
+    List<BookingDto> getBookingsByIds(Collection<Long> bookingIds);
+
+    int expireStaleBookings(int batchSize);
 }
\ No newline at end of file
@@ -2,104 +2,115 @@ package ru.practicum.shareit.booking;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.hibernate.validator.internal.util.stereotypes.Lazy;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingDtoWithItemAndBooker;
+import ru.practicum.shareit.booking.dto.BookingStateSummaryDto;
+import ru.practicum.shareit.config.PagingPolicy;
 import ru.practicum.shareit.exception.InvalidBookingIdException;
+import ru.practicum.shareit.exception.InvalidItemIdException;
 import ru.practicum.shareit.exception.InvalidPathVariableException;
 import ru.practicum.shareit.exception.PermissionDeniedException;
 import ru.practicum.shareit.item.Item;
-import ru.practicum.shareit.item.ItemMapper;
+import ru.practicum.shareit.item.ItemRepository;
 import ru.practicum.shareit.item.ItemService;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserService;
 
+import java.time.Clock;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
 @Slf4j
 public class BookingServiceImpl implements BookingService {
+    private static final int EXPORT_PAGE_SIZE = 500;
+    private static final LocalDateTime EXPORT_FIRST_START = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
     private final BookingRepository bookingRepository;
-    @Lazy
+    private final ItemRepository itemRepository;
+    private final ItemBookingSummaryService summaryService;
+    private final BookingQueryCache bookingQueryCache;
+    private final BookingEventService bookingEventService;
+    private final PagingPolicy pagingPolicy;
+    private final Clock clock;
     private final ItemService itemService;
     private final UserService userService;
 
     @Override
     @Transactional
-    public Booking createBooking(long userId, BookingDto bookingDto) {
-        if (isNewBookingDatesInvalid(bookingDto.getStartDate(), bookingDto.getEndDate())) {
+    public BookingDtoWithItemAndBooker createBooking(long userId, BookingDto bookingDto) {
+        if (isNewBookingDatesInvalid(bookingDto.getStartDate(), bookingDto.getEndDate(), LocalDateTime.now(clock))) {
             throw new InvalidPathVariableException("Wrong dates in booking request");
         }
         userService.checkUser(userId);
         itemService.checkItem(bookingDto.getItemId());
         User user = userService.getUserById(userId);
-        Item item = ItemMapper.toItem(bookingDto.getItemId(),
-                itemService.getItemByIdAndUserIdNot(userId, bookingDto.getItemId()), user);
+        Item item = itemRepository.findWithOwnerByUserIdNotAndId(userId, bookingDto.getItemId())
+                .orElseThrow(() -> new InvalidItemIdException(bookingDto.getItemId()));
         if (!item.isAvailable()) {
             throw new PermissionDeniedException("Item is not available");
         }
         bookingDto.setStatus(BookingStatus.WAITING);
-        return bookingRepository.save(BookingMapper.toBooking(bookingDto, user, item));
+        Booking booking = bookingRepository.save(BookingMapper.toBooking(bookingDto, user, item));
+        summaryService.refreshSummary(item.getId());
+        bookingEventService.recordEvent(booking, BookingEventType.CREATED);
+        bookingQueryCache.evictUsers(userId, booking.getOwnerId());
+        return BookingMapper.toBookingDtoWithItemAndBooker(booking);
     }
 
     @Override
     @Transactional
-    public Booking updateBooking(long userId, long bookingId, boolean approved) {
-        if (!isBookingValid(bookingId)) {
-            throw new InvalidBookingIdException(bookingId);
+    public BookingDtoWithItemAndBooker updateBooking(long userId, long bookingId, boolean approved) {
+        BookingStatus status = approved ? BookingStatus.APPROVED : BookingStatus.REJECTED;
+        if (bookingRepository.updateStatus(bookingId, userId, BookingStatus.WAITING, status) == 0) {
+            throw statusNotUpdated(userId, bookingId);
         }
-        userService.checkUser(userId);
-        Booking booking = bookingRepository.findByItemUserIdAndId(userId, bookingId)
+        Booking booking = bookingRepository.findDetailedById(bookingId)
                 .orElseThrow(() -> new InvalidBookingIdException(bookingId));
-        if (approved && booking.getStatus().equals(BookingStatus.APPROVED) ||
-            !approved && booking.getStatus().equals(BookingStatus.REJECTED)) {
-            throw new InvalidPathVariableException("Status of booking is already set");
-        }
-        if (approved) {
-            booking.setStatus(BookingStatus.APPROVED);
-        } else {
-            booking.setStatus(BookingStatus.REJECTED);
-        }
-        return bookingRepository.save(booking);
+        summaryService.refreshSummary(booking.getItem().getId());
+        bookingEventService.recordEvent(booking, approved ? BookingEventType.APPROVED : BookingEventType.REJECTED);
+        bookingQueryCache.evictUsers(userId, booking.getUser().getId());
+        return BookingMapper.toBookingDtoWithItemAndBooker(booking);
     }
 
     @Override
-    public Booking getBookingById(long userId, long bookingId) {
+    public BookingDtoWithItemAndBooker getBookingById(long userId, long bookingId) {
         userService.checkUser(userId);
-        Booking booking = bookingRepository.findById(bookingId)
+        Booking booking = bookingRepository.findDetailedById(bookingId)
                 .orElseThrow(() -> new InvalidBookingIdException(bookingId));
         if (booking.getUser().getId() != userId && booking.getItem().getUser().getId() != userId) {
             throw new InvalidBookingIdException(bookingId);
         }
-        return booking;
+        return BookingMapper.toBookingDtoWithItemAndBooker(booking);
     }
 
     @Override
-    public List<Booking> getBookingByState(long userId, String state, Integer from, Integer size) {
+    public List<BookingDtoWithItemAndBooker> getBookingByState(long userId, String state, Integer from, Integer size) {
         userService.checkUser(userId);
         if (state == null || state.isBlank() || state.isEmpty()) {
             state = BookingState.ALL.toString();
         }
-        if (from == null || size == null) {
-            return getBookingByState(userId, state);
-        } else if (from < 0 || size <= 0) {
-            throw new InvalidPathVariableException("Incorrect page parameters");
-        } else {
-            int pageNumber = from / size;
-            final Pageable page = PageRequest.of(pageNumber, size, Sort.by(Sort.Direction.ASC, "id"));
-            return getBookingByState(userId, state, page).getContent();
-        }
+        final String bookingState = state;
+        final LocalDateTime now = LocalDateTime.now(clock);
+        final Pageable page = pagingPolicy.pageOf("bookings", from, size, Sort.by(Sort.Direction.ASC, "id"));
+        return bookingQueryCache.get(userId, BookingRole.BOOKER, bookingState, (int) page.getOffset(),
+                page.getPageSize(), now, () -> BookingMapper.toBookingDtoWithItemAndBooker(
+                        getBookingByState(userId, bookingState, now, page).getContent()));
     }
 
-    private Page<Booking> getBookingByState(long userId, String state, Pageable page) {
+    private Page<Booking> getBookingByState(long userId, String state, LocalDateTime now, Pageable page) {
         try {
             switch (BookingState.valueOf(state)) {
                 case ALL:
@@ -110,41 +121,13 @@ public class BookingServiceImpl implements BookingService {
                             BookingStatus.valueOf(state), page);
                 case FUTURE:
                     return bookingRepository
-                            .findByUserIdAndStartDateAfterOrderByStartDateDesc(userId, LocalDateTime.now(), page);
-                case PAST:
-                    return bookingRepository
-                            .findByUserIdAndEndDateBeforeOrderByStartDateDesc(userId, LocalDateTime.now(), page);
-                case CURRENT:
-                    return bookingRepository
-                            .findByUserIdAndEndDateAfterAndStartDateBeforeOrderByIdAsc(userId,
-                                    LocalDateTime.now(), LocalDateTime.now(), page);
-                default:
-                    throw new InvalidPathVariableException("Unknown state: " + state);
-            }
-        } catch (IllegalArgumentException iae) {
-            throw new InvalidPathVariableException("Unknown state: " + state);
-        }
-    }
-
-    private List<Booking> getBookingByState(long userId, String state) {
-        try {
-            switch (BookingState.valueOf(state)) {
-                case ALL:
-                    return bookingRepository.findByUserIdOrderByStartDateDesc(userId);
-                case WAITING:
-                case REJECTED:
-                    return bookingRepository.findByUserIdAndStatusIsOrderByStartDateDesc(userId,
-                            BookingStatus.valueOf(state));
-                case FUTURE:
-                    return bookingRepository
-                            .findByUserIdAndStartDateAfterOrderByStartDateDesc(userId, LocalDateTime.now());
+                            .findByUserIdAndStartDateAfterOrderByStartDateDesc(userId, now, page);
                 case PAST:
                     return bookingRepository
-                            .findByUserIdAndEndDateBeforeOrderByStartDateDesc(userId, LocalDateTime.now());
+                            .findByUserIdAndEndDateBeforeOrderByStartDateDesc(userId, now, page);
                 case CURRENT:
                     return bookingRepository
-                            .findByUserIdAndEndDateAfterAndStartDateBeforeOrderByIdAsc(userId,
-                                    LocalDateTime.now(), LocalDateTime.now());
+                            .findByUserIdAndEndDateAfterAndStartDateBeforeOrderByIdAsc(userId, now, now, page);
                 default:
                     throw new InvalidPathVariableException("Unknown state: " + state);
             }
@@ -154,41 +137,38 @@ public class BookingServiceImpl implements BookingService {
     }
 
     @Override
-    public List<Booking> getBookingsByOwnerAndState(long userId, String state, Integer from, Integer size) {
+    public List<BookingDtoWithItemAndBooker> getBookingsByOwnerAndState(long userId, String state, Integer from,
+                                                                        Integer size) {
         userService.checkUser(userId);
         if (state == null || state.isBlank() || state.isEmpty()) {
             state = BookingState.ALL.toString();
         }
-        if (from == null || size == null) {
-            return getBookingsByOwnerAndState(userId, state);
-        } else if (from < 0 || size <= 0) {
-            throw new InvalidPathVariableException("Incorrect page parameters");
-        } else {
-            int pageNumber = from / size;
-            final Pageable page = PageRequest.of(pageNumber, size, Sort.by(Sort.Direction.ASC, "id"));
-            return getBookingsByOwnerAndState(userId, state, page).getContent();
-        }
+        final String bookingState = state;
+        final LocalDateTime now = LocalDateTime.now(clock);
+        final Pageable page = pagingPolicy.pageOf("owner-bookings", from, size, Sort.by(Sort.Direction.ASC, "id"));
+        return bookingQueryCache.get(userId, BookingRole.OWNER, bookingState, (int) page.getOffset(),
+                page.getPageSize(), now, () -> BookingMapper.toBookingDtoWithItemAndBooker(
+                        getBookingsByOwnerAndState(userId, bookingState, now, page).getContent()));
     }
 
-    private List<Booking> getBookingsByOwnerAndState(long userId, String state) {
+    private Page<Booking> getBookingsByOwnerAndState(long userId, String state, LocalDateTime now, Pageable page) {
         try {
             switch (BookingState.valueOf(state)) {
                 case ALL:
-                    return bookingRepository.findByItemUserIdOrderByStartDateDesc(userId);
+                    return bookingRepository.findByOwnerIdOrderByStartDateDesc(userId, page);
                 case WAITING:
                 case REJECTED:
-                    return bookingRepository.findByItemUserIdAndStatusIsOrderByStartDateDesc(userId,
-                            BookingStatus.valueOf(state));
+                    return bookingRepository.findByOwnerIdAndStatusIsOrderByStartDateDesc(userId,
+                            BookingStatus.valueOf(state), page);
                 case FUTURE:
                     return bookingRepository
-                            .findByItemUserIdAndStartDateAfterOrderByStartDateDesc(userId, LocalDateTime.now());
+                            .findByOwnerIdAndStartDateAfterOrderByStartDateDesc(userId, now, page);
                 case PAST:
                     return bookingRepository
-                            .findByItemUserIdAndEndDateBeforeOrderByStartDateDesc(userId, LocalDateTime.now());
+                            .findByOwnerIdAndEndDateBeforeOrderByStartDateDesc(userId, now, page);
                 case CURRENT:
                     return bookingRepository
-                            .findByItemUserIdAndEndDateAfterAndStartDateBeforeOrderByIdAsc(userId,
-                                    LocalDateTime.now(), LocalDateTime.now());
+                            .findByOwnerIdAndEndDateAfterAndStartDateBeforeOrderByIdAsc(userId, now, now, page);
                 default:
                     throw new InvalidPathVariableException("Unknown state: " + state);
             }
@@ -197,31 +177,87 @@ public class BookingServiceImpl implements BookingService {
         }
     }
 
-    private Page<Booking> getBookingsByOwnerAndState(long userId, String state, Pageable page) {
+    @Override
+    public BookingStateSummaryDto getBookingSummary(long userId) {
+        userService.checkUser(userId);
+        return bookingRepository.countByUserIdGroupByState(userId, LocalDateTime.now(clock));
+    }
+
+    @Override
+    public BookingStateSummaryDto getBookingSummaryByOwner(long userId) {
+        userService.checkUser(userId);
+        return bookingRepository.countByOwnerIdGroupByState(userId, LocalDateTime.now(clock));
+    }
+
+    /**
+     * Reads the history in keyset pages, each in its own short read transaction, so no connection
+     * is held while the client consumes the stream at its own pace.
+     */
+    @Override
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public void exportBookings(long userId, String role, Consumer<BookingDto> consumer) {
+        BookingRole bookingRole;
         try {
-            switch (BookingState.valueOf(state)) {
-                case ALL:
-                    return bookingRepository.findByItemUserIdOrderByStartDateDesc(userId, page);
-                case WAITING:
-                case REJECTED:
-                    return bookingRepository.findByItemUserIdAndStatusIsOrderByStartDateDesc(userId,
-                            BookingStatus.valueOf(state), page);
-                case FUTURE:
-                    return bookingRepository
-                            .findByItemUserIdAndStartDateAfterOrderByStartDateDesc(userId, LocalDateTime.now(), page);
-                case PAST:
-                    return bookingRepository
-                            .findByItemUserIdAndEndDateBeforeOrderByStartDateDesc(userId, LocalDateTime.now(), page);
-                case CURRENT:
-                    return bookingRepository
-                            .findByItemUserIdAndEndDateAfterAndStartDateBeforeOrderByIdAsc(userId,
-                                    LocalDateTime.now(), LocalDateTime.now(), page);
-                default:
-                    throw new InvalidPathVariableException("Unknown state: " + state);
+            bookingRole = BookingRole.valueOf(role);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidPathVariableException("Unknown role: " + role);
+        }
+        userService.checkUser(userId);
+        Pageable page = PageRequest.of(0, EXPORT_PAGE_SIZE);
+        LocalDateTime startDate = EXPORT_FIRST_START;
+        long id = Long.MAX_VALUE;
+        List<BookingDto> bookings;
+        do {
+            bookings = bookingRole == BookingRole.OWNER
+                    ? bookingRepository.findBookingDtoByOwnerIdAfter(userId, startDate, id, page)
+                    : bookingRepository.findBookingDtoByUserIdAfter(userId, startDate, id, page);
+            bookings.forEach(consumer);
+            if (!bookings.isEmpty()) {
+                BookingDto last = bookings.get(bookings.size() - 1);
+                startDate = last.getStartDate();
+                id = last.getId();
             }
-        } catch (IllegalArgumentException iae) {
-            throw new InvalidPathVariableException("Unknown state: " + state);
+        } while (bookings.size() == EXPORT_PAGE_SIZE);
+    }
+
+    @Override
+    public List<BookingDto> getBookingsByIds(Collection<Long> bookingIds) {
+        return bookingRepository.findBookingDtoByIdIn(bookingIds);
+    }
+
+    @Override
+    @Transactional
+    public int expireStaleBookings(int batchSize) {
+        List<Booking> staleBookings = bookingRepository.findByStatusAndStartDateBeforeOrderByStartDateAsc(
+                BookingStatus.WAITING, LocalDateTime.now(clock), PageRequest.of(0, batchSize));
+        if (staleBookings.isEmpty()) {
+            return 0;
+        }
+        List<Long> bookingIds = staleBookings.stream().map(Booking::getId).collect(Collectors.toList());
+        bookingRepository.updateStatus(bookingIds, BookingStatus.WAITING, BookingStatus.REJECTED);
+        bookingEventService.recordEvents(bookingIds, BookingEventType.EXPIRED);
+        // A constant number of statements per batch keeps the claimed rows locked briefly. Summaries are only
+        // marked stale here: reads recalculate them until the summary sweeper catches up after this commit.
+        summaryService.markStale(staleBookings.stream()
+                .map(booking -> booking.getItem().getId())
+                .distinct()
+                .sorted()
+                .collect(Collectors.toList()));
+        staleBookings.forEach(booking -> bookingQueryCache.evictUsers(booking.getUser().getId(),
+                booking.getOwnerId()));
+        log.info("{} waiting bookings are expired", staleBookings.size());
+        return staleBookings.size();
+    }
+
+    private RuntimeException statusNotUpdated(long userId, long bookingId) {
+        if (!isBookingValid(bookingId)) {
+            return new InvalidBookingIdException(bookingId);
+        }
+        userService.checkUser(userId);
+        if (!bookingRepository.existsByOwnerIdAndId(userId, bookingId)) {
+            return new InvalidBookingIdException(bookingId);
         }
+        return new InvalidPathVariableException("Status of booking is already set");
     }
 
     private boolean isInvalidId(long id) {
@@ -232,12 +268,13 @@ public class BookingServiceImpl implements BookingService {
         return bookingRepository.existsById(id);
     }
 
-    private boolean isNewBookingDatesInvalid(LocalDateTime bookingStartDate, LocalDateTime bookingEndDate) {
+    private boolean isNewBookingDatesInvalid(LocalDateTime bookingStartDate, LocalDateTime bookingEndDate,
+                                             LocalDateTime now) {
         return bookingStartDate == null || bookingEndDate == null
                 || bookingStartDate.isEqual(bookingEndDate)
                 || bookingEndDate.isBefore(bookingStartDate)
-                || bookingStartDate.isBefore(LocalDateTime.now())
-                || bookingEndDate.isBefore(LocalDateTime.now());
+                || bookingStartDate.isBefore(now)
+                || bookingEndDate.isBefore(now);
     }
 
     public boolean isBookingValid(long id) {
@@ -0,0 +1,81 @@
+package ru.practicum.shareit.booking;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+/**
+ * Last and next booking of an item, maintained on booking writes so item reads don't query bookings.
+ * The summary must be recalculated once {@code refreshAt} has passed.
+ */
+@Data
+@Builder
+@Entity
+@Table(name = "item_booking_summary", schema = "public")
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemBookingSummary {
+    @Id
+    @Column(name = "item_id")
+    private Long itemId;
+
+    @Column(name = "last_booking_id")
+    private Long lastBookingId;
+
+    @Column(name = "last_booker_id")
+    private Long lastBookerId;
+
+    @Column(name = "last_start_date")
+    private LocalDateTime lastStartDate;
+
+    @Column(name = "last_end_date")
+    private LocalDateTime lastEndDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "last_status")
+    private BookingStatus lastStatus;
+
+    @Column(name = "next_booking_id")
+    private Long nextBookingId;
+
+    @Column(name = "next_booker_id")
+    private Long nextBookerId;
+
+    @Column(name = "next_start_date")
+    private LocalDateTime nextStartDate;
+
+    @Column(name = "next_end_date")
+    private LocalDateTime nextEndDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "next_status")
+    private BookingStatus nextStatus;
+
+    @Column(name = "refresh_at")
+    private LocalDateTime refreshAt;
+
+    public boolean isStale(LocalDateTime now) {
+        return refreshAt != null && !refreshAt.isAfter(now);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof ItemBookingSummary)) return false;
+        return itemId != null && itemId.equals(((ItemBookingSummary) o).getItemId());
+    }
+
+    @Override
+    public int hashCode() {
+        return getClass().hashCode();
+    }
+}
@@ -0,0 +1,39 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static org.hibernate.cfg.AvailableSettings.JPA_LOCK_TIMEOUT;
+import static ru.practicum.shareit.booking.BookingRepository.SKIP_LOCKED;
+
+@Repository
+public interface ItemBookingSummaryRepository extends JpaRepository<ItemBookingSummary, Long> {
+    /**
+     * Locks the summary row until the end of the transaction, so recalculations of one item run one at a time.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<ItemBookingSummary> findLockedByItemId(long itemId);
+
+    /**
+     * Summaries being recalculated by a booking write are skipped, that write brings them up to date.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @QueryHints(@QueryHint(name = JPA_LOCK_TIMEOUT, value = SKIP_LOCKED))
+    List<ItemBookingSummary> findByRefreshAtLessThanEqualOrderByRefreshAtAsc(LocalDateTime now, Pageable page);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update ItemBookingSummary s set s.refreshAt = :now where s.itemId in :itemIds")
+    int markStale(Collection<Long> itemIds, LocalDateTime now);
+}
@@ -0,0 +1,20 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Map;
+
+@Service
+public interface ItemBookingSummaryService {
+    void createSummary(long itemId);
+
+    void refreshSummary(long itemId);
+
+    void markStale(Collection<Long> itemIds);
+
+    Map<Long, ItemBookingSummary> getSummaries(Collection<Long> itemIds, LocalDateTime now);
+
+    int refreshStaleSummaries(int batchSize);
+}
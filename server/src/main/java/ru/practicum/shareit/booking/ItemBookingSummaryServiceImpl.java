@@ -0,0 +1,86 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+@Service
+@Slf4j
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class ItemBookingSummaryServiceImpl implements ItemBookingSummaryService {
+    private static final List<BookingStatus> NEXT_BOOKING_STATUSES = List.of(BookingStatus.WAITING,
+            BookingStatus.APPROVED);
+
+    private final ItemBookingSummaryRepository summaryRepository;
+    private final BookingRepository bookingRepository;
+    private final Clock clock;
+
+    @Override
+    @Transactional
+    public void createSummary(long itemId) {
+        summaryRepository.save(ItemBookingSummary.builder().itemId(itemId).build());
+    }
+
+    @Override
+    @Transactional
+    public void refreshSummary(long itemId) {
+        // Concurrent booking writes of one item wait here for each other; the later one then reads the bookings
+        // committed by the earlier one instead of overwriting its summary with a calculation that missed them.
+        summaryRepository.findLockedByItemId(itemId);
+        summaryRepository.save(calculateSummary(itemId, LocalDateTime.now(clock)));
+    }
+
+    @Override
+    @Transactional
+    public void markStale(Collection<Long> itemIds) {
+        summaryRepository.markStale(itemIds, LocalDateTime.now(clock));
+    }
+
+    @Override
+    public Map<Long, ItemBookingSummary> getSummaries(Collection<Long> itemIds, LocalDateTime now) {
+        Map<Long, ItemBookingSummary> summaries = new HashMap<>();
+        summaryRepository.findAllById(itemIds).stream()
+                .filter(summary -> !summary.isStale(now))
+                .forEach(summary -> summaries.put(summary.getItemId(), summary));
+        itemIds.stream()
+                .filter(itemId -> !summaries.containsKey(itemId))
+                .forEach(itemId -> summaries.put(itemId, calculateSummary(itemId, now)));
+        return summaries;
+    }
+
+    @Override
+    @Transactional
+    public int refreshStaleSummaries(int batchSize) {
+        LocalDateTime now = LocalDateTime.now(clock);
+        // The claimed rows stay locked until commit, like in refreshSummary: a booking write of one of these items
+        // waits for the sweep and then recalculates with its booking, rows it already holds are skipped.
+        List<ItemBookingSummary> staleSummaries = summaryRepository
+                .findByRefreshAtLessThanEqualOrderByRefreshAtAsc(now, PageRequest.of(0, batchSize));
+        staleSummaries.forEach(summary -> summaryRepository.save(calculateSummary(summary.getItemId(), now)));
+        if (!staleSummaries.isEmpty()) {
+            log.info("{} booking summaries of items are refreshed", staleSummaries.size());
+        }
+        return staleSummaries.size();
+    }
+
+    private ItemBookingSummary calculateSummary(long itemId, LocalDateTime now) {
+        return BookingMapper.toItemBookingSummary(itemId,
+                bookingRepository.findTopByItemIdAndStartDateBeforeOrderByStartDateDesc(itemId, now)
+                        .orElse(null),
+                bookingRepository.findTopByItemIdAndStartDateAfterAndStatusInOrderByStartDateAsc(itemId, now,
+                        NEXT_BOOKING_STATUSES).orElse(null),
+                bookingRepository.findTopByItemIdAndStartDateAfterOrderByStartDateAsc(itemId, now)
+                        .map(Booking::getStartDate)
+                        .orElse(null));
+    }
+}
@@ -0,0 +1,26 @@
+package ru.practicum.shareit.booking;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Moves booking summaries forward as time passes: once a future booking starts it becomes the last one.
+ */
+@Component
+@RequiredArgsConstructor
+public class ItemBookingSummarySweeper {
+    private final ItemBookingSummaryService summaryService;
+
+    @Value("${shareit.booking-summary.sweep-batch-size:100}")
+    private int batchSize;
+
+    @Scheduled(fixedDelayString = "${shareit.booking-summary.sweep-interval:60000}")
+    public void refreshStaleSummaries() {
+        int refreshed;
+        do {
+            refreshed = summaryService.refreshStaleSummaries(batchSize);
+        } while (refreshed == batchSize);
+    }
+}
@@ -0,0 +1,104 @@
+package ru.practicum.shareit.booking;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingEventDto;
+import ru.practicum.shareit.user.UserService;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Pushes new booking requests to their item owners over Server-Sent Events.
+ * Idle subscribers are async requests and hold no threads. Pushes and heartbeats are written by SseSender,
+ * so a slow client delays neither booking creation nor the scheduler, and a client whose write stalls is dropped.
+ */
+@Component
+public class OwnerBookingStream {
+    private final UserService userService;
+    private final BookingService bookingService;
+    private final BookingEventBroker eventBroker;
+    private final SseSender sseSender;
+    private final long timeout;
+    private final Map<Long, Set<SseSender.Channel>> subscribers = new ConcurrentHashMap<>();
+
+    public OwnerBookingStream(UserService userService, BookingService bookingService, BookingEventBroker eventBroker,
+                              SseSender sseSender, @Value("${shareit.owner-stream.timeout:1800000}") long timeout) {
+        this.userService = userService;
+        this.bookingService = bookingService;
+        this.eventBroker = eventBroker;
+        this.sseSender = sseSender;
+        this.timeout = timeout;
+    }
+
+    public SseEmitter subscribe(long ownerId) {
+        userService.checkUser(ownerId);
+        eventBroker.startTailing();
+        SseEmitter emitter = new SseEmitter(timeout);
+        SseSender.Channel channel = sseSender.open(emitter, dropped -> unsubscribe(ownerId, dropped));
+        subscribers.computeIfAbsent(ownerId, id -> ConcurrentHashMap.newKeySet()).add(channel);
+        emitter.onCompletion(() -> unsubscribe(ownerId, channel));
+        emitter.onTimeout(() -> unsubscribe(ownerId, channel));
+        emitter.onError(e -> unsubscribe(ownerId, channel));
+        return emitter;
+    }
+
+    /**
+     * New bookings are taken from the tailed event log, so a subscriber gets the bookings created through
+     * any server instance.
+     */
+    @PostConstruct
+    public void listen() {
+        eventBroker.addListener(this::publish);
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.owner-stream.heartbeat-interval:30000}")
+    public void sendHeartbeats() {
+        subscribers.values().forEach(channels -> channels.forEach(channel ->
+                channel.send(emitter -> emitter.send(SseEmitter.event().comment("heartbeat")))));
+    }
+
+    @PreDestroy
+    public void close() {
+        subscribers.values().forEach(channels -> channels.forEach(channel -> channel.send(SseEmitter::complete)));
+    }
+
+    private void publish(List<BookingEventDto> events) {
+        Map<Long, Long> ownerIds = events.stream()
+                .filter(event -> event.getType() == BookingEventType.CREATED)
+                .filter(event -> event.getOwnerId() != null && subscribers.containsKey(event.getOwnerId()))
+                .collect(Collectors.toMap(BookingEventDto::getBookingId, BookingEventDto::getOwnerId));
+        if (ownerIds.isEmpty()) {
+            return;
+        }
+        bookingService.getBookingsByIds(ownerIds.keySet())
+                .forEach(bookingDto -> send(ownerIds.get(bookingDto.getId()), bookingDto));
+    }
+
+    private void send(long ownerId, BookingDto bookingDto) {
+        Set<SseSender.Channel> channels = subscribers.get(ownerId);
+        if (channels == null) {
+            return;
+        }
+        channels.forEach(channel -> channel.send(emitter -> emitter.send(SseEmitter.event()
+                .id(String.valueOf(bookingDto.getId()))
+                .name(String.valueOf(bookingDto.getStatus()))
+                .data(bookingDto))));
+    }
+
+    private void unsubscribe(long ownerId, SseSender.Channel channel) {
+        channel.close();
+        subscribers.computeIfPresent(ownerId, (id, channels) -> {
+            channels.remove(channel);
+            return channels.isEmpty() ? null : channels;
+        });
+    }
+}
@@ -0,0 +1,165 @@
+package ru.practicum.shareit.booking;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Writes Server-Sent Events on a small dedicated pool, so that scheduler and request threads never block on a slow
+ * client. Writes of one emitter run one at a time and in order. An emitter whose write has been blocked longer than
+ * shareit.sse.send-timeout is dropped: it takes no more writes, its subscriber is removed, and the emitter is
+ * completed as soon as the blocked write returns.
+ */
+@Slf4j
+@Component
+public class SseSender {
+    private final ExecutorService pool;
+    private final long sendTimeoutNanos;
+    private final LongSupplier nanoClock;
+    private final Set<Channel> channels = ConcurrentHashMap.newKeySet();
+
+    @Autowired
+    public SseSender(@Value("${shareit.sse.sender-threads:4}") int threads,
+                     @Value("${shareit.sse.send-timeout:10s}") Duration sendTimeout) {
+        this(threads, sendTimeout, System::nanoTime);
+    }
+
+    public SseSender(int threads, Duration sendTimeout, LongSupplier nanoClock) {
+        this.pool = Executors.newFixedThreadPool(threads, new CustomizableThreadFactory("sse-sender-"));
+        this.sendTimeoutNanos = sendTimeout.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Opens a channel to the emitter; {@code onDrop} gets the channel once it is dropped after a failed or stalled
+     * write.
+     */
+    public Channel open(SseEmitter emitter, Consumer<Channel> onDrop) {
+        Channel channel = new Channel(emitter, onDrop);
+        channels.add(channel);
+        return channel;
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.sse.stall-check-interval:1000}")
+    public void dropStalledChannels() {
+        long now = nanoClock.getAsLong();
+        channels.forEach(channel -> {
+            if (channel.busy && now - channel.busySince > sendTimeoutNanos) {
+                log.debug("Server-sent events write is blocked for more than {} ms, subscriber is dropped",
+                        Duration.ofNanos(sendTimeoutNanos).toMillis());
+                channel.drop();
+            }
+        });
+    }
+
+    @PreDestroy
+    public void close() {
+        pool.shutdownNow();
+    }
+
+    @FunctionalInterface
+    public interface Write {
+        void write(SseEmitter emitter) throws IOException;
+    }
+
+    public final class Channel {
+        private final SseEmitter emitter;
+        private final Consumer<Channel> onDrop;
+        private final Queue<Write> writes = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean dropped = new AtomicBoolean();
+        private volatile boolean closed;
+        private volatile boolean busy;
+        private volatile long busySince;
+
+        private Channel(SseEmitter emitter, Consumer<Channel> onDrop) {
+            this.emitter = emitter;
+            this.onDrop = onDrop;
+        }
+
+        /**
+         * Queues a write; it is ignored once the channel is closed.
+         */
+        public void send(Write write) {
+            if (closed) {
+                return;
+            }
+            writes.add(write);
+            schedule();
+        }
+
+        /**
+         * Stops writing, for subscribers that went away on their own.
+         */
+        public void close() {
+            closed = true;
+            channels.remove(this);
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    pool.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    scheduled.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            Write write;
+            Exception failure = null;
+            while (!closed && (write = writes.poll()) != null) {
+                busySince = nanoClock.getAsLong();
+                busy = true;
+                try {
+                    write.write(emitter);
+                } catch (IOException | IllegalStateException e) {
+                    log.debug("Server-sent events subscriber is disconnected: {}", e.getMessage());
+                    failure = e;
+                    drop();
+                } finally {
+                    busy = false;
+                }
+            }
+            if (dropped.get()) {
+                writes.clear();
+                // the emitter can't be completed while a write on it is blocked, so the dropping thread leaves it here
+                if (failure != null) {
+                    emitter.completeWithError(failure);
+                } else {
+                    emitter.complete();
+                }
+            }
+            scheduled.set(false);
+            if (!closed && !writes.isEmpty()) {
+                schedule();
+            }
+        }
+
+        private void drop() {
+            close();
+            if (dropped.compareAndSet(false, true)) {
+                onDrop.accept(this);
+            }
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package ru.practicum.shareit.booking.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.item.dto.ItemDtoWithOwner;
+import ru.practicum.shareit.user.UserDto;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class BookingDtoWithItemAndBooker {
+    private Long id;
+
+    @JsonProperty("start")
+    private LocalDateTime startDate;
+
+    @JsonProperty("end")
+    private LocalDateTime endDate;
+
+    private ItemDtoWithOwner item;
+
+    @JsonProperty("booker")
+    private UserDto user;
+
+    private BookingStatus status;
+}
@@ -0,0 +1,24 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class BookingStateSummaryDto {
+    private long all;
+    private long current;
+    private long past;
+    private long future;
+    private long waiting;
+    private long rejected;
+
+    public BookingStateSummaryDto(Long all, Long current, Long past, Long future, Long waiting, Long rejected) {
+        this.all = all != null ? all : 0;
+        this.current = current != null ? current : 0;
+        this.past = past != null ? past : 0;
+        this.future = future != null ? future : 0;
+        this.waiting = waiting != null ? waiting : 0;
+        this.rejected = rejected != null ? rejected : 0;
+    }
+}
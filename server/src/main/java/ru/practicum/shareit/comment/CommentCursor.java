@@ -0,0 +1,39 @@
+package ru.practicum.shareit.comment;
+
+import lombok.Data;
+import ru.practicum.shareit.exception.InvalidPathVariableException;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position of the last returned comment, comments are listed from newest to oldest.
+ */
+@Data
+public class CommentCursor {
+    private static final String SEPARATOR = "_";
+
+    private final LocalDateTime created;
+    private final long id;
+
+    public static CommentCursor of(CommentDto comment) {
+        return new CommentCursor(comment.getCreated(), comment.getId());
+    }
+
+    public String encode() {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((created + SEPARATOR + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static CommentCursor decode(String cursor) {
+        try {
+            String[] parts = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8)
+                    .split(SEPARATOR);
+            return new CommentCursor(LocalDateTime.parse(parts[0]), Long.parseLong(parts[1]));
+        } catch (IllegalArgumentException | DateTimeParseException | ArrayIndexOutOfBoundsException e) {
+            throw new InvalidPathVariableException("Incorrect cursor");
+        }
+    }
+}
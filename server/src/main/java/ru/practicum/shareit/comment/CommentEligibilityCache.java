@@ -0,0 +1,49 @@
+package ru.practicum.shareit.comment;
+
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded LRU set of (user, item) pairs known to be allowed to comment.
+ * A finished approved booking stays finished, so only positive answers are kept.
+ */
+@Component
+public class CommentEligibilityCache {
+    private final int maxSize;
+    private final Map<Key, Boolean> entries;
+
+    public CommentEligibilityCache(@Value("${shareit.comment-eligibility-cache.max-size:10000}") int maxSize) {
+        this.maxSize = maxSize;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, Boolean> eldest) {
+                return size() > CommentEligibilityCache.this.maxSize;
+            }
+        };
+    }
+
+    public boolean isEligible(long userId, long itemId) {
+        synchronized (entries) {
+            return entries.containsKey(new Key(userId, itemId));
+        }
+    }
+
+    public void markEligible(long userId, long itemId) {
+        if (maxSize <= 0) {
+            return;
+        }
+        synchronized (entries) {
+            entries.put(new Key(userId, itemId), Boolean.TRUE);
+        }
+    }
+
+    @Data
+    private static class Key {
+        private final long userId;
+        private final long itemId;
+    }
+}
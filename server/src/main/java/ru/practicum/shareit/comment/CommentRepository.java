@@ -1,11 +1,24 @@
 package ru.practicum.shareit.comment;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
 public interface CommentRepository extends JpaRepository<Comment, Long> {
-    List<Comment> findByItemId(long itemId);
-}
\ No newline at end of file
+    @Query("select new ru.practicum.shareit.comment.CommentDto(c.id, c.text, u.name, c.created) " +
+            "from Comment c left join c.user u " +
+            "where c.item.id = ?1 " +
+            "order by c.created desc, c.id desc")
+    List<CommentDto> findCommentDtoByItemId(long itemId, Pageable page);
+
+    @Query("select new ru.practicum.shareit.comment.CommentDto(c.id, c.text, u.name, c.created) " +
+            "from Comment c left join c.user u " +
+            "where c.item.id = ?1 and (c.created < ?2 or c.created = ?2 and c.id < ?3) " +
+            "order by c.created desc, c.id desc")
+    List<CommentDto> findCommentDtoByItemIdBefore(long itemId, LocalDateTime created, long id, Pageable page);
+}
@@ -0,0 +1,124 @@
+package ru.practicum.shareit.comment;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Bounded LRU cache of the latest comments per item, newest first: one page plus one comment
+ * that tells whether there is a next page.
+ * New comments are put in front of a cached list after commit instead of reloading it.
+ * Entries expire a fixed time after loading: a list may come from a lagging replica and comments added through
+ * other server instances don't reach this cache, so the TTL should not exceed the replica lag.
+ */
+@Component
+public class ItemCommentCache {
+    private final int maxSize;
+    private final int windowSize;
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+    private final Map<Long, Entry> entries;
+    private long version;
+
+    @Autowired
+    public ItemCommentCache(@Value("${shareit.comment-cache.max-size:1000}") int maxSize,
+                            @Value("${shareit.comments.page-size:10}") int pageSize,
+                            @Value("${shareit.comment-cache.ttl:5s}") Duration ttl) {
+        this(maxSize, pageSize, ttl, System::nanoTime);
+    }
+
+    public ItemCommentCache(int maxSize, int pageSize, Duration ttl, LongSupplier nanoClock) {
+        this.maxSize = maxSize;
+        this.windowSize = pageSize + 1;
+        this.ttlNanos = ttl.toNanos();
+        this.nanoClock = nanoClock;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                return size() > ItemCommentCache.this.maxSize;
+            }
+        };
+    }
+
+    public List<CommentDto> get(long itemId, Supplier<List<CommentDto>> loader) {
+        if (maxSize <= 0) {
+            return loader.get();
+        }
+        long loadVersion;
+        long loadedAt = nanoClock.getAsLong();
+        synchronized (entries) {
+            Entry entry = entries.get(itemId);
+            if (entry != null && loadedAt - entry.expiresAt < 0) {
+                return entry.comments;
+            }
+            loadVersion = version;
+        }
+        List<CommentDto> comments = Collections.unmodifiableList(loader.get());
+        synchronized (entries) {
+            // a comment committed while loading may be missing from the loaded list
+            if (version == loadVersion) {
+                entries.put(itemId, new Entry(comments, loadedAt + ttlNanos));
+            }
+        }
+        return comments;
+    }
+
+    public void prepend(long itemId, CommentDto comment) {
+        afterCommit(() -> {
+            synchronized (entries) {
+                Entry entry = entries.get(itemId);
+                if (entry != null && entry.comments.stream().noneMatch(c -> c.getId() == comment.getId())) {
+                    List<CommentDto> updated = new ArrayList<>(windowSize);
+                    updated.add(comment);
+                    updated.addAll(entry.comments.subList(0, Math.min(entry.comments.size(), windowSize - 1)));
+                    // the rest of the list is as old as its load, so the entry keeps its expiry
+                    entries.put(itemId, new Entry(Collections.unmodifiableList(updated), entry.expiresAt));
+                }
+                version++;
+            }
+        });
+    }
+
+    public void evict(long itemId) {
+        afterCommit(() -> {
+            synchronized (entries) {
+                entries.remove(itemId);
+                version++;
+            }
+        });
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static class Entry {
+        private final List<CommentDto> comments;
+        private final long expiresAt;
+
+        Entry(List<CommentDto> comments, long expiresAt) {
+            this.comments = comments;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package ru.practicum.shareit.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Maximum number of entries per Hibernate cache region, shareit.cache.regions.&lt;region&gt;=&lt;size&gt;,
+ * and how long an entry is kept after it was written, shareit.cache.ttl.
+ */
+@Data
+@ConfigurationProperties("shareit.cache")
+public class CacheRegionProperties {
+    private Map<String, Long> regions = new HashMap<>();
+    private Duration ttl = Duration.ofSeconds(5);
+}
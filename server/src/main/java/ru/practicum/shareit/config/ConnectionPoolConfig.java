@@ -0,0 +1,36 @@
+package ru.practicum.shareit.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Sizes connection pools that don't set maximum-pool-size themselves: a connection for each of
+ * shareit.execution.max-concurrency requests plus shareit.execution.background-connections for scheduled jobs
+ * and event stream catch-up (spring.task.scheduling.pool.size and shareit.sse.sender-threads), so background
+ * work doesn't make requests wait for a connection.
+ */
+@Slf4j
+@Configuration
+public class ConnectionPoolConfig {
+    @Bean
+    public static BeanPostProcessor connectionPoolSizer(
+            @Value("${shareit.execution.max-concurrency:10}") int maxConcurrency,
+            @Value("${shareit.execution.background-connections:8}") int backgroundConnections) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof HikariDataSource && ((HikariDataSource) bean).getMaximumPoolSize() < 1) {
+                    HikariDataSource dataSource = (HikariDataSource) bean;
+                    dataSource.setMaximumPoolSize(maxConcurrency + backgroundConnections);
+                    log.info("Connection pool {} is sized to {} for requests and {} for background work",
+                            dataSource.getPoolName(), maxConcurrency, backgroundConnections);
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,82 @@
+package ru.practicum.shareit.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Request execution mode of the embedded Tomcat (shareit.execution.mode):
+ * platform - Tomcat's own pool of max-concurrency threads (server.tomcat.threads.max) with an unbounded queue,
+ * bounded - fixed pool of max-concurrency threads with a queue of queue-capacity,
+ * virtual - a virtual thread per request with at most max-concurrency of them running at once and at most
+ * queue-capacity waiting. Virtual threads need Java 21, on older runtimes the bounded pool is used instead.
+ * Requests over the queue capacity are rejected and their connections closed.
+ * The JDBC pool has a connection for each of max-concurrency requests (see ConnectionPoolConfig), so requests
+ * wait in the queue, not for a connection.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnExpression("'${shareit.execution.mode:platform}' != 'platform'")
+public class ExecutionConfig {
+    @Value("${shareit.execution.mode:platform}")
+    private String mode;
+
+    @Value("${shareit.execution.max-concurrency:10}")
+    private int maxConcurrency;
+
+    @Value("${shareit.execution.queue-capacity:1000}")
+    private int queueCapacity;
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> requestExecutorCustomizer() {
+        Executor executor = "virtual".equals(mode) ? virtualThreadExecutor() : boundedExecutor();
+        return protocolHandler -> protocolHandler.setExecutor(executor);
+    }
+
+    private Executor boundedExecutor() {
+        log.info("Requests are executed by bounded pool of {} threads with queue of {}", maxConcurrency, queueCapacity);
+        return new ThreadPoolExecutor(maxConcurrency, maxConcurrency, 60L, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("shareit-exec-"));
+    }
+
+    private Executor virtualThreadExecutor() {
+        ExecutorService virtualThreads;
+        try {
+            virtualThreads = (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+        } catch (ReflectiveOperationException e) {
+            log.warn("Virtual threads are not supported by the runtime, falling back to bounded pool");
+            return boundedExecutor();
+        }
+        log.info("Requests are executed by virtual threads, at most {} at once with {} waiting",
+                maxConcurrency, queueCapacity);
+        Semaphore permits = new Semaphore(maxConcurrency, true);
+        return task -> {
+            if (permits.getQueueLength() >= queueCapacity) {
+                throw new RejectedExecutionException("Request queue is full: " + queueCapacity);
+            }
+            virtualThreads.execute(() -> {
+                permits.acquireUninterruptibly();
+                try {
+                    task.run();
+                } finally {
+                    permits.release();
+                }
+            });
+        };
+    }
+}
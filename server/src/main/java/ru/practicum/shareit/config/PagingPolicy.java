@@ -0,0 +1,68 @@
+package ru.practicum.shareit.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.exception.InvalidPathVariableException;
+
+/**
+ * Paging rules shared by all listings: a missing size falls back to the default page,
+ * a size above the maximum is clamped to it. Each adjustment is counted per listing.
+ * Whole histories are served by the streaming export, never by a listing.
+ * Batch lookups by ids are limited to the maximum page size.
+ */
+@Slf4j
+@Component
+public class PagingPolicy {
+    private static final String ADJUSTED_METRIC = "shareit.paging.adjusted";
+
+    private final int defaultSize;
+    private final int maxSize;
+    private final MeterRegistry meterRegistry;
+
+    public PagingPolicy(@Value("${shareit.paging.default-size:10}") int defaultSize,
+                        @Value("${shareit.paging.max-size:100}") int maxSize,
+                        MeterRegistry meterRegistry) {
+        this.maxSize = Math.max(maxSize, 1);
+        this.defaultSize = Math.min(Math.max(defaultSize, 1), this.maxSize);
+        this.meterRegistry = meterRegistry;
+    }
+
+    public Pageable pageOf(String listing, Integer from, Integer size, Sort sort) {
+        if (from != null && from < 0) {
+            throw new InvalidPathVariableException("Incorrect page parameters");
+        }
+        int limit = limit(listing, size, defaultSize);
+        return PageRequest.of(from == null ? 0 : from / limit, limit, sort);
+    }
+
+    public int limit(String listing, Integer size, int fallback) {
+        if (size == null) {
+            meterRegistry.counter(ADJUSTED_METRIC, "listing", listing, "reason", "defaulted").increment();
+            return Math.min(fallback, maxSize);
+        }
+        if (size <= 0) {
+            throw new InvalidPathVariableException("Incorrect page parameters");
+        }
+        if (size > maxSize) {
+            log.debug("Page size {} of {} is clamped to {}", size, listing, maxSize);
+            meterRegistry.counter(ADJUSTED_METRIC, "listing", listing, "reason", "clamped").increment();
+            return maxSize;
+        }
+        return size;
+    }
+
+    /**
+     * Batch lookups are bounded by the same maximum as pages, a larger batch is rejected rather than cut.
+     */
+    public void checkBatch(String listing, int count) {
+        if (count > maxSize) {
+            log.debug("Batch of {} {} is over {}", count, listing, maxSize);
+            throw new InvalidPathVariableException("No more than " + maxSize + " ids per request");
+        }
+    }
+}
@@ -0,0 +1,147 @@
+package ru.practicum.shareit.config;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseCookie;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Keeps reads on the primary for a while after the user wrote, until the replica has had time to catch up.
+ * A request with a method other than GET, HEAD or OPTIONS is a write. Its time is kept here per X-Sharer-User-Id
+ * and also sent to the client as a cookie. Other server instances behind the gateway learn of the write from
+ * the cookie, and so do requests without X-Sharer-User-Id, such as creating a user. The cookie value is not
+ * trusted beyond the window: a time in the future counts as now, and one older than the window is ignored.
+ */
+public class ReadYourWritesTracker implements AsyncHandlerInterceptor {
+    public static final String LAST_WRITE_COOKIE = "shareit-last-write";
+
+    private static final String USER_HEADER = "X-Sharer-User-Id";
+    private static final Set<String> READ_METHODS = Set.of(HttpMethod.GET.name(), HttpMethod.HEAD.name(),
+            HttpMethod.OPTIONS.name());
+    private static final int MAX_TRACKED_USERS = 100_000;
+
+    private final ThreadLocal<Long> currentLastWrite = new ThreadLocal<>();
+    private final Clock clock;
+    private final Duration window;
+    private final Map<Long, Long> lastWriteByUser;
+
+    public ReadYourWritesTracker(Clock clock, Duration replicaLag) {
+        this.clock = clock;
+        this.window = replicaLag;
+        this.lastWriteByUser = new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Long> eldest) {
+                return size() > MAX_TRACKED_USERS || !isWithinWindow(eldest.getValue(), clock.millis());
+            }
+        };
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        long now = clock.millis();
+        Long userId = userIdOf(request);
+        Long lastWrite = lastWriteOf(request, now);
+        if (userId != null) {
+            Long userLastWrite;
+            synchronized (lastWriteByUser) {
+                userLastWrite = lastWriteByUser.get(userId);
+            }
+            if (userLastWrite != null && (lastWrite == null || userLastWrite > lastWrite)) {
+                lastWrite = userLastWrite;
+            }
+        }
+        if (isWrite(request)) {
+            lastWrite = now;
+            recordWrite(userId, now);
+            response.addHeader(HttpHeaders.SET_COOKIE, ResponseCookie.from(LAST_WRITE_COOKIE, String.valueOf(now))
+                    .path("/")
+                    .maxAge(window)
+                    .httpOnly(true)
+                    .build()
+                    .toString());
+        }
+        // replaces whatever a previous request left on this thread
+        currentLastWrite.set(lastWrite);
+        return true;
+    }
+
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        currentLastWrite.remove();
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        if (isWrite(request)) {
+            // the window on this instance runs from the end of the write, when it has been committed
+            recordWrite(userIdOf(request), clock.millis());
+        }
+        currentLastWrite.remove();
+    }
+
+    public boolean isReplicaStale() {
+        Long lastWrite = currentLastWrite.get();
+        return lastWrite != null && isWithinWindow(lastWrite, clock.millis());
+    }
+
+    private void recordWrite(Long userId, long time) {
+        if (userId == null) {
+            return;
+        }
+        synchronized (lastWriteByUser) {
+            // re-inserted, so the map stays ordered by time of the last write
+            lastWriteByUser.remove(userId);
+            lastWriteByUser.put(userId, time);
+        }
+    }
+
+    private boolean isWithinWindow(long lastWrite, long now) {
+        return now - lastWrite < window.toMillis();
+    }
+
+    private static boolean isWrite(HttpServletRequest request) {
+        return !READ_METHODS.contains(request.getMethod());
+    }
+
+    private static Long userIdOf(HttpServletRequest request) {
+        String userId = request.getHeader(USER_HEADER);
+        if (userId == null) {
+            return null;
+        }
+        try {
+            return Long.parseLong(userId);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private Long lastWriteOf(HttpServletRequest request, long now) {
+        Cookie[] cookies = request.getCookies();
+        if (cookies == null) {
+            return null;
+        }
+        for (Cookie cookie : cookies) {
+            if (LAST_WRITE_COOKIE.equals(cookie.getName())) {
+                long lastWrite;
+                try {
+                    lastWrite = Math.min(Long.parseLong(cookie.getValue()), now);
+                } catch (NumberFormatException e) {
+                    return null;
+                }
+                return isWithinWindow(lastWrite, now) ? lastWrite : null;
+            }
+        }
+        return null;
+    }
+}
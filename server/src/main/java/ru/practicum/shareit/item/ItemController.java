@@ -14,9 +14,11 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import ru.practicum.shareit.comment.Comment;
 import ru.practicum.shareit.comment.CommentDto;
+import ru.practicum.shareit.comment.CommentPageDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoWithBookingInfo;
 import ru.practicum.shareit.item.dto.ItemDtoWithCommentsAndBookingInfo;
+import ru.practicum.shareit.item.dto.ItemDtoWithOwner;
 import ru.practicum.shareit.item.dto.ItemDtoWithRequestId;
 
 import javax.validation.Valid;
@@ -44,9 +46,9 @@ public class ItemController {
     }
 
     @PatchMapping("/{itemId}")
-    public Item updateItem(@RequestHeader("X-Sharer-User-Id") long userId,
-                           @PathVariable long itemId,
-                           @Valid @RequestBody ItemDto itemDto) {
+    public ItemDtoWithOwner updateItem(@RequestHeader("X-Sharer-User-Id") long userId,
+                                       @PathVariable long itemId,
+                                       @Valid @RequestBody ItemDto itemDto) {
         log.info("Request for item {} of user {} update", itemId, userId);
         return itemService.updateItem(userId, itemId, itemDto);
     }
@@ -64,6 +66,15 @@ public class ItemController {
         return itemService.getItemByIdWithCommentsAndBookingInfo(userId, itemId);
     }
 
+    @GetMapping("/{itemId}/comments")
+    public CommentPageDto getComments(@RequestHeader("X-Sharer-User-Id") long userId,
+                                      @PathVariable long itemId,
+                                      @RequestParam(required = false) String cursor,
+                                      @RequestParam(required = false) Integer size) {
+        log.info("Request for get {} comments on item {} after {}", size, itemId, cursor);
+        return itemService.getComments(userId, itemId, cursor, size);
+    }
+
     @GetMapping
     public List<ItemDtoWithBookingInfo> getItemsByUserId(@RequestHeader("X-Sharer-User-Id") long userId,
                                                          @RequestParam(required = false) Integer from,
@@ -72,6 +83,13 @@ public class ItemController {
         return itemService.getItemsByUserId(userId, from, size);
     }
 
+    @GetMapping(params = "ids")
+    public List<ItemDtoWithBookingInfo> getItemsByIds(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                      @RequestParam List<Long> ids) {
+        log.info("Request for get items {} of user {}", ids, userId);
+        return itemService.getItemsByIds(userId, ids);
+    }
+
     @GetMapping("/search")
     public List<ItemDto> searchItems(@RequestHeader("X-Sharer-User-Id") long userId,
                                      @RequestParam String text,
@@ -2,12 +2,16 @@ package ru.practicum.shareit.item;
 
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.comment.CommentDto;
+import ru.practicum.shareit.comment.CommentPageDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoWithBookingInfo;
 import ru.practicum.shareit.item.dto.ItemDtoWithCommentsAndBookingInfo;
+import ru.practicum.shareit.item.dto.ItemDtoWithOwner;
 import ru.practicum.shareit.item.dto.ItemDtoWithRequestId;
 import ru.practicum.shareit.request.ItemRequest;
+import ru.practicum.shareit.request.ItemRequestMapper;
 import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserMapper;
 
 import java.util.List;
 import java.util.stream.Collectors;
@@ -58,6 +62,16 @@ public class ItemMapper {
                 .build();
     }
 
+    public static ItemDtoWithCommentsAndBookingInfo toItemDtoWithCommentsAndBookingInfo(Item item,
+                                                                                        CommentPageDto comments,
+                                                                                        BookingDto lastBooking,
+                                                                                        BookingDto nextBooking) {
+        ItemDtoWithCommentsAndBookingInfo itemDto = toItemDtoWithCommentsAndBookingInfo(item,
+                comments.getComments(), lastBooking, nextBooking);
+        itemDto.setCommentsCursor(comments.getNextCursor());
+        return itemDto;
+    }
+
     public static Item toItem(long itemId, ItemDto itemDto, User user) {
         return Item.builder()
                 .id(itemId)
@@ -98,23 +112,27 @@ public class ItemMapper {
                 .build();
     }
 
-    public static Item toItem(Item item, ItemDto itemDto, User user, ItemRequest request) {
-        itemDto.setName(itemDto.getName() != null ?
-                itemDto.getName() :
-                item.getName());
-        itemDto.setDescription(itemDto.getDescription() != null ?
-                itemDto.getDescription() :
-                item.getDescription());
-        itemDto.setAvailable(itemDto.getAvailable() != null ?
-                itemDto.getAvailable() :
-                item.isAvailable());
-        return Item.builder()
+    public static void updateItem(Item item, ItemDto itemDto, ItemRequest request) {
+        if (itemDto.getName() != null) {
+            item.setName(itemDto.getName());
+        }
+        if (itemDto.getDescription() != null) {
+            item.setDescription(itemDto.getDescription());
+        }
+        if (itemDto.getAvailable() != null) {
+            item.setAvailable(itemDto.getAvailable());
+        }
+        item.setRequest(request);
+    }
+
+    public static ItemDtoWithOwner toItemDtoWithOwner(Item item) {
+        return ItemDtoWithOwner.builder()
                 .id(item.getId())
-                .name(itemDto.getName())
-                .description(itemDto.getDescription())
-                .available(itemDto.getAvailable())
-                .user(user)
-                .request(request)
+                .name(item.getName())
+                .description(item.getDescription())
+                .available(item.isAvailable())
+                .user(UserMapper.toUserDto(item.getUser()))
+                .request(item.getRequest() != null ? ItemRequestMapper.toItemRequestDto(item.getRequest()) : null)
                 .build();
     }
 
@@ -124,7 +142,7 @@ public class ItemMapper {
                 .name(item.getName())
                 .description(item.getDescription())
                 .available(item.isAvailable())
-                .user(item.getUser())
+                .user(UserMapper.toUserDto(item.getUser()))
                 .requestId(item.getRequest() != null ? item.getRequest().getId() : null)
                 .build();
     }
@@ -2,33 +2,39 @@ package ru.practicum.shareit.item;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_MODE;
+
 @Repository
 public interface ItemRepository extends JpaRepository<Item, Long> {
-    Optional<Item> findByUserIdAndId(long userId, long itemId);
-
     Optional<Item> findByUserIdNotAndId(long userId, long itemId);
 
-    List<Item> findByRequestUserIdOrderByRequestCreationDateDesc(long userId);
+    /**
+     * Reads the item from the database rather than from this instance's second-level cache, which may hold
+     * a version older than one written through another instance.
+     */
+    @QueryHints(@QueryHint(name = HINT_CACHE_MODE, value = "IGNORE"))
+    @Query("select i from Item i where i.id = :itemId")
+    Optional<Item> findUncachedById(long itemId);
 
-    void deleteByUserIdAndId(long userId, long itemId);
+    @EntityGraph(attributePaths = {"user", "request"})
+    Optional<Item> findWithOwnerByUserIdNotAndId(long userId, long itemId);
 
-    List<Item> findByUserIdOrderByIdAsc(long userId);
+    List<Item> findByRequestIdIn(Collection<Long> requestIds);
 
-    Page<Item> findByUserIdOrderByIdAsc(long userId, Pageable page);
+    void deleteByUserIdAndId(long userId, long itemId);
 
-    @Query(value = "select i.* from items i " +
-            "where i.is_available = true " +
-            "and (upper(i.name collate \"en_US\") like upper(concat('%', ?1, '%') collate \"en_US\") " +
-            "or upper(i.description collate \"en_US\") like upper(concat('%', ?2, '%') collate \"en_US\")) ",
-            nativeQuery = true)
-    List<Item> searchItemsByText(String name, String description);
+    Page<Item> findByUserIdOrderByIdAsc(long userId, Pageable page);
 
     @Query(value = "select i.* from items i " +
             "where i.is_available = true " +
@@ -3,9 +3,11 @@ package ru.practicum.shareit.item;
 import org.springframework.stereotype.Service;
 import ru.practicum.shareit.comment.Comment;
 import ru.practicum.shareit.comment.CommentDto;
+import ru.practicum.shareit.comment.CommentPageDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoWithBookingInfo;
 import ru.practicum.shareit.item.dto.ItemDtoWithCommentsAndBookingInfo;
+import ru.practicum.shareit.item.dto.ItemDtoWithOwner;
 import ru.practicum.shareit.item.dto.ItemDtoWithRequestId;
 
 import java.util.List;
@@ -14,7 +16,7 @@ import java.util.List;
 public interface ItemService {
     ItemDtoWithRequestId createItem(long userId, ItemDto itemDto);
 
-    Item updateItem(long userId, long itemId, ItemDto itemDto);
+    ItemDtoWithOwner updateItem(long userId, long itemId, ItemDto itemDto);
 
     void deleteItem(long userId, long itemId);
 
@@ -26,9 +28,13 @@ public interface ItemService {
 
     List<ItemDtoWithBookingInfo> getItemsByUserId(long userId, Integer from, Integer size);
 
+    List<ItemDtoWithBookingInfo> getItemsByIds(long userId, List<Long> ids);
+
     List<ItemDto> searchItems(long userId, String text, Integer from, Integer size);
 
     CommentDto createComment(long userId, long itemId, Comment text);
 
+    CommentPageDto getComments(long userId, long itemId, String cursor, Integer size);
+
     void checkItem(long itemId);
 }
\ No newline at end of file
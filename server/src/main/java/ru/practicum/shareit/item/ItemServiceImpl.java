@@ -2,6 +2,7 @@ package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -10,10 +11,17 @@ import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.BookingMapper;
 import ru.practicum.shareit.booking.BookingRepository;
 import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.ItemBookingSummary;
+import ru.practicum.shareit.booking.ItemBookingSummaryService;
 import ru.practicum.shareit.comment.Comment;
+import ru.practicum.shareit.comment.CommentCursor;
 import ru.practicum.shareit.comment.CommentDto;
+import ru.practicum.shareit.comment.CommentEligibilityCache;
 import ru.practicum.shareit.comment.CommentMapper;
+import ru.practicum.shareit.comment.CommentPageDto;
 import ru.practicum.shareit.comment.CommentRepository;
+import ru.practicum.shareit.comment.ItemCommentCache;
+import ru.practicum.shareit.config.PagingPolicy;
 import ru.practicum.shareit.exception.InvalidItemAttrsException;
 import ru.practicum.shareit.exception.InvalidItemIdException;
 import ru.practicum.shareit.exception.InvalidPathVariableException;
@@ -21,16 +29,20 @@ import ru.practicum.shareit.exception.PermissionDeniedException;
 import ru.practicum.shareit.item.dto.ItemDto;
 import ru.practicum.shareit.item.dto.ItemDtoWithBookingInfo;
 import ru.practicum.shareit.item.dto.ItemDtoWithCommentsAndBookingInfo;
+import ru.practicum.shareit.item.dto.ItemDtoWithOwner;
 import ru.practicum.shareit.item.dto.ItemDtoWithRequestId;
 import ru.practicum.shareit.request.ItemRequestRepository;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserService;
 
+import java.time.Clock;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
-import java.util.stream.Stream;
 
 @Service
 @Slf4j
@@ -40,8 +52,15 @@ public class ItemServiceImpl implements ItemService {
     private final ItemRepository itemRepository;
     private final ItemRequestRepository itemRequestRepository;
     private final CommentRepository commentRepository;
+    private final ItemCommentCache commentCache;
+    private final CommentEligibilityCache commentEligibilityCache;
     private final BookingRepository bookingRepository;
+    private final ItemBookingSummaryService summaryService;
+    private final PagingPolicy pagingPolicy;
+    private final Clock clock;
     private final UserService userService;
+    @Value("${shareit.comments.page-size:10}")
+    private int commentsPageSize;
 
     @Override
     @Transactional
@@ -53,21 +72,23 @@ public class ItemServiceImpl implements ItemService {
         Item item = itemRepository.save(ItemMapper.toItem(itemDto, user,
                 itemDto.getRequestId() != null ? itemRequestRepository
                         .findById(itemDto.getRequestId()).orElse(null) : null));
+        summaryService.createSummary(item.getId());
         log.info("Item {} is created", item.getId());
         return ItemMapper.toItemDtoWithRequestId(item);
     }
 
     @Override
     @Transactional
-    public Item updateItem(long userId, long itemId, ItemDto itemDto) {
-        if (!isItemValid(userId, itemId)) {
+    public ItemDtoWithOwner updateItem(long userId, long itemId, ItemDto itemDto) {
+        // the versioned UPDATE then only conflicts with a write that commits between this read and it
+        Item item = itemRepository.findUncachedById(itemId).orElseThrow(() -> new InvalidItemIdException(itemId));
+        if (item.getUser().getId() != userId) {
+            userService.checkUser(userId);
             throw new InvalidItemIdException(itemId);
         }
-        User user = userService.getUserById(userId);
-        return itemRepository.save(ItemMapper.toItem(itemRepository.findByUserIdAndId(userId, itemId)
-                .orElseThrow(() -> new InvalidItemIdException(itemId)), itemDto, user,
-                itemDto.getRequestId() != null ? itemRequestRepository
-                        .findById(itemDto.getRequestId()).orElse(null) : null));
+        ItemMapper.updateItem(item, itemDto, itemDto.getRequestId() != null ? itemRequestRepository
+                .findById(itemDto.getRequestId()).orElse(null) : null);
+        return ItemMapper.toItemDtoWithOwner(item);
     }
 
     @Override
@@ -75,6 +96,7 @@ public class ItemServiceImpl implements ItemService {
     public void deleteItem(long userId, long itemId) {
         userService.checkUser(userId);
         itemRepository.deleteByUserIdAndId(userId, itemId);
+        commentCache.evict(itemId);
     }
 
     @Override
@@ -85,18 +107,23 @@ public class ItemServiceImpl implements ItemService {
         }
         checkItem(itemId);
         userService.checkUser(userId);
-        if (bookingRepository
-                .findByUserIdAndStatusIsAndEndDateBeforeOrderByStartDateDesc(userId,
-                        BookingStatus.APPROVED, LocalDateTime.now()).isEmpty()) {
-            throw new PermissionDeniedException("You have no access to this operation");
+        LocalDateTime now = LocalDateTime.now(clock);
+        if (!commentEligibilityCache.isEligible(userId, itemId)) {
+            if (!bookingRepository.existsByUserIdAndItemIdAndStatusAndEndDateBefore(userId, itemId,
+                    BookingStatus.APPROVED, now)) {
+                throw new PermissionDeniedException("You have no access to this operation");
+            }
+            commentEligibilityCache.markEligible(userId, itemId);
         }
         Comment comment = Comment.builder()
                 .text(text.getText())
                 .user(userService.getUserById(userId))
                 .item(itemRepository.findById(itemId).orElseThrow(() -> new InvalidItemIdException(itemId)))
-                .created(LocalDateTime.now())
+                .created(now)
                 .build();
-        return CommentMapper.toCommentDto(commentRepository.save(comment));
+        CommentDto commentDto = CommentMapper.toCommentDto(commentRepository.save(comment));
+        commentCache.prepend(itemId, commentDto);
+        return commentDto;
     }
 
     @Override
@@ -109,16 +136,46 @@ public class ItemServiceImpl implements ItemService {
     public ItemDtoWithCommentsAndBookingInfo getItemByIdWithCommentsAndBookingInfo(long userId, long itemId) {
         userService.checkUser(userId);
         Item item = itemRepository.findById(itemId).orElseThrow(() -> new InvalidItemIdException(itemId));
+        ItemBookingSummary summary = item.getUser().getId() == userId ?
+                summaryService.getSummaries(List.of(itemId), LocalDateTime.now(clock)).get(itemId) : null;
         return ItemMapper.toItemDtoWithCommentsAndBookingInfo(item,
-                CommentMapper.toCommentDto(commentRepository.findByItemId(itemId)),
-                item.getUser().getId() == userId ?
-                    BookingMapper.toBookingDto(bookingRepository
-                            .findTopByItemIdAndStartDateBeforeOrderByStartDateDesc(itemId,
-                        LocalDateTime.now()).orElse(null)) : null,
-                item.getUser().getId() == userId ?
-                    BookingMapper.toBookingDto(bookingRepository
-                            .findTopByItemIdAndStartDateAfterAndStatusInOrderByStartDateAsc(itemId,
-                        LocalDateTime.now(), List.of(BookingStatus.WAITING, BookingStatus.APPROVED)).orElse(null)) : null);
+                getLatestComments(itemId, commentsPageSize),
+                BookingMapper.toLastBookingDto(summary),
+                BookingMapper.toNextBookingDto(summary));
+    }
+
+    @Override
+    public CommentPageDto getComments(long userId, long itemId, String cursor, Integer size) {
+        final int limit = pagingPolicy.limit("comments", size, commentsPageSize);
+        userService.checkUser(userId);
+        checkItem(itemId);
+        if (cursor == null || cursor.isBlank()) {
+            return getLatestComments(itemId, limit);
+        }
+        CommentCursor position = CommentCursor.decode(cursor);
+        return toCommentPage(commentRepository.findCommentDtoByItemIdBefore(itemId, position.getCreated(),
+                position.getId(), PageRequest.of(0, limit + 1)), limit);
+    }
+
+    private CommentPageDto getLatestComments(long itemId, int size) {
+        if (size == commentsPageSize) {
+            return toCommentPage(commentCache.get(itemId, () -> commentRepository
+                    .findCommentDtoByItemId(itemId, PageRequest.of(0, size + 1))), size);
+        }
+        return toCommentPage(commentRepository.findCommentDtoByItemId(itemId, PageRequest.of(0, size + 1)), size);
+    }
+
+    private CommentPageDto toCommentPage(List<CommentDto> comments, int size) {
+        if (comments.size() <= size) {
+            return CommentPageDto.builder()
+                    .comments(comments)
+                    .build();
+        }
+        List<CommentDto> page = comments.subList(0, size);
+        return CommentPageDto.builder()
+                .comments(page)
+                .nextCursor(CommentCursor.of(page.get(size - 1)).encode())
+                .build();
     }
 
     @Override
@@ -131,26 +188,38 @@ public class ItemServiceImpl implements ItemService {
     @Override
     public List<ItemDtoWithBookingInfo> getItemsByUserId(long userId, Integer from, Integer size) {
         userService.checkUser(userId);
-        Stream<Item> items;
-        if (from == null || size == null) {
-            items = itemRepository.findByUserIdOrderByIdAsc(userId).stream();
-        } else if (from < 0 || size <= 0) {
-            throw new InvalidPathVariableException("Incorrect page parameters");
-        } else {
-            int pageNumber = from / size;
-            final Pageable page = PageRequest.of(pageNumber, size, Sort.by(Sort.Direction.ASC, "id"));
-            items = itemRepository.findByUserIdOrderByIdAsc(userId, page).get();
+        final Pageable page = pagingPolicy.pageOf("items", from, size, Sort.by(Sort.Direction.ASC, "id"));
+        List<Item> userItems = itemRepository.findByUserIdOrderByIdAsc(userId, page).getContent();
+        Map<Long, ItemBookingSummary> summaries = summaryService.getSummaries(userItems.stream()
+                .map(Item::getId)
+                .collect(Collectors.toList()), LocalDateTime.now(clock));
+        return userItems.stream()
+                .map(item -> ItemMapper.toItemDtoWithBookingInfo(item,
+                        BookingMapper.toLastBookingDto(summaries.get(item.getId())),
+                        BookingMapper.toNextBookingDto(summaries.get(item.getId()))))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public List<ItemDtoWithBookingInfo> getItemsByIds(long userId, List<Long> ids) {
+        List<Long> itemIds = ids.stream().distinct().collect(Collectors.toList());
+        pagingPolicy.checkBatch("items", itemIds.size());
+        userService.checkUser(userId);
+        if (itemIds.isEmpty()) {
+            return new ArrayList<>();
         }
-        return items.map(item -> ItemMapper.toItemDtoWithBookingInfo(item,
-                            item.getUser().getId() == userId ?
-                                    BookingMapper.toBookingDto(bookingRepository
-                                            .findTopByItemIdAndStartDateBeforeOrderByStartDateDesc(item.getId(),
-                                                    LocalDateTime.now()).orElse(null)) : null,
-                            item.getUser().getId() == userId ?
-                                    BookingMapper.toBookingDto(bookingRepository
-                                            .findTopByItemIdAndStartDateAfterAndStatusInOrderByStartDateAsc(item.getId(),
-                                                    LocalDateTime.now(),
-                                                    List.of(BookingStatus.WAITING, BookingStatus.APPROVED)).orElse(null)) : null))
+        Map<Long, Item> items = itemRepository.findAllById(itemIds).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+        Map<Long, ItemBookingSummary> summaries = summaryService.getSummaries(items.values().stream()
+                .filter(item -> item.getUser().getId() == userId)
+                .map(Item::getId)
+                .collect(Collectors.toList()), LocalDateTime.now(clock));
+        return itemIds.stream()
+                .map(items::get)
+                .filter(Objects::nonNull)
+                .map(item -> ItemMapper.toItemDtoWithBookingInfo(item,
+                        BookingMapper.toLastBookingDto(summaries.get(item.getId())),
+                        BookingMapper.toNextBookingDto(summaries.get(item.getId()))))
                 .collect(Collectors.toList());
     }
 
@@ -160,15 +229,8 @@ public class ItemServiceImpl implements ItemService {
             return new ArrayList<>();
         }
         userService.checkUser(userId);
-        if (from == null || size == null) {
-            return ItemMapper.toItemDto(itemRepository.searchItemsByText(text, text));
-        } else if (from < 0 || size <= 0) {
-            throw new InvalidPathVariableException("Incorrect page parameters");
-        } else {
-            int pageNumber = from / size;
-            final Pageable page = PageRequest.of(pageNumber, size, Sort.by(Sort.Direction.ASC, "id"));
-            return ItemMapper.toItemDto(itemRepository.searchItemsByText(text, text, page).getContent());
-        }
+        final Pageable page = pagingPolicy.pageOf("item-search", from, size, Sort.by(Sort.Direction.ASC, "id"));
+        return ItemMapper.toItemDto(itemRepository.searchItemsByText(text, text, page).getContent());
 /*        if (text == null || text.isEmpty() || text.isBlank()) {
             return new ArrayList<>();
         }
@@ -200,16 +262,4 @@ public class ItemServiceImpl implements ItemService {
                 itemDto.getName() == null || itemDto.getName().isBlank() || itemDto.getName().isEmpty() ||
                 itemDto.getAvailable() == null;
     }
-
-    private boolean isInvalidId(long id) {
-        return id <= 0;
-    }
-
-    private boolean isItemExists(long id) {
-        return itemRepository.existsById(id);
-    }
-
-    private boolean isItemValid(long userId, long id) {
-        return !isInvalidId(id) && isItemExists(id);
-    }
 }
\ No newline at end of file
@@ -19,6 +19,7 @@ public class ItemDtoWithCommentsAndBookingInfo {
     private String description;
     private Boolean available;
     private List<CommentDto> comments;
+    private String commentsCursor;
     private BookingDto lastBooking;
     private BookingDto nextBooking;
 }
\ No newline at end of file
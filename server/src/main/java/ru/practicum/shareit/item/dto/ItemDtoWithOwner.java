@@ -0,0 +1,25 @@
+package ru.practicum.shareit.item.dto;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import ru.practicum.shareit.request.dto.ItemRequestDto;
+import ru.practicum.shareit.user.UserDto;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ItemDtoWithOwner {
+    private Long id;
+    private String name;
+    private String description;
+    private Boolean available;
+
+    @JsonProperty("owner")
+    private UserDto user;
+
+    private ItemRequestDto request;
+}
@@ -4,7 +4,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
-import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserDto;
 
 @Data
 @Builder
@@ -15,6 +15,6 @@ public class ItemDtoWithRequestId {
     private String name;
     private String description;
     private Boolean available;
-    private User user;
+    private UserDto user;
     private Long requestId;
 }
\ No newline at end of file
@@ -27,8 +27,8 @@ public class ItemRequestController {
     private final ItemRequestService requestService;
 
     @PostMapping
-    public ItemRequest createItemRequest(@RequestHeader("X-Sharer-User-Id") long userId,
-                                         @Valid @RequestBody ItemRequestDto itemRequestDto) {
+    public ItemRequestDto createItemRequest(@RequestHeader("X-Sharer-User-Id") long userId,
+                                            @Valid @RequestBody ItemRequestDto itemRequestDto) {
         log.info("Request for request for item {} from user {} creation", itemRequestDto.getDescription(), userId);
         return requestService.createItemRequest(userId, itemRequestDto);
     }
@@ -41,9 +41,11 @@ public class ItemRequestController {
     }
 
     @GetMapping
-    public List<ItemRequestDtoWithItems> getItemRequestsByOwnerId(@RequestHeader("X-Sharer-User-Id") long userId) {
-        log.info("Request for get  user's {} requests for items", userId);
-        return requestService.getItemRequestsByRequestorId(userId);
+    public List<ItemRequestDtoWithItems> getItemRequestsByOwnerId(@RequestHeader("X-Sharer-User-Id") long userId,
+                                                         @RequestParam(required = false) Integer from,
+                                                         @RequestParam(required = false) Integer size) {
+        log.info("Request for get {} user's {} requests for items from {}", size, userId, from);
+        return requestService.getItemRequestsByRequestorId(userId, from, size);
     }
 
     @GetMapping("/all")
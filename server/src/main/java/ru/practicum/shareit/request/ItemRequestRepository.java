@@ -4,12 +4,8 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 
-import java.util.List;
-
 public interface ItemRequestRepository  extends JpaRepository<ItemRequest, Long> {
-    List<ItemRequest> findByUserIdOrderByCreationDateDesc(long userId);
-
-    List<ItemRequest> findByUserIdNotOrderByCreationDateDesc(long userId);
+    Page<ItemRequest> findByUserId(long userId, Pageable page);
 
     Page<ItemRequest> findByUserIdNot(long userId, Pageable page);
 }
\ No newline at end of file
@@ -8,11 +8,11 @@ import java.util.List;
 
 @Service
 public interface ItemRequestService {
-    ItemRequest createItemRequest(long userId, ItemRequestDto itemRequestDto);
+    ItemRequestDto createItemRequest(long userId, ItemRequestDto itemRequestDto);
 
     ItemRequestDtoWithItems getItemRequestById(long userId, long itemRequestId);
 
-    List<ItemRequestDtoWithItems> getItemRequestsByRequestorId(long userId);
+    List<ItemRequestDtoWithItems> getItemRequestsByRequestorId(long userId, Integer from, Integer size);
 
     List<ItemRequestDtoWithItems> getItemRequests(long userId, Integer from, Integer size);
 }
\ No newline at end of file
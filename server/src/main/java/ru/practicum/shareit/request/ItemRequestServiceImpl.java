@@ -1,13 +1,13 @@
 package ru.practicum.shareit.request;
 
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.exception.InvalidItemRequestIdException;
-import ru.practicum.shareit.exception.InvalidPathVariableException;
+import ru.practicum.shareit.config.PagingPolicy;
+import ru.practicum.shareit.item.Item;
 import ru.practicum.shareit.item.ItemMapper;
 import ru.practicum.shareit.item.ItemRepository;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
@@ -17,6 +17,7 @@ import ru.practicum.shareit.user.UserService;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Service
@@ -25,15 +26,17 @@ import java.util.stream.Collectors;
 public class ItemRequestServiceImpl implements ItemRequestService {
     private final ItemRepository itemRepository;
     private final ItemRequestRepository itemRequestRepository;
+    private final PagingPolicy pagingPolicy;
     private final UserService userService;
 
     @Override
     @Transactional
-    public ItemRequest createItemRequest(long userId, ItemRequestDto itemRequestDto) {
+    public ItemRequestDto createItemRequest(long userId, ItemRequestDto itemRequestDto) {
         User user = userService.getUserById(userId);
         itemRequestDto.setUserId(userId);
         itemRequestDto.setCreationDate(LocalDateTime.now());
-        return itemRequestRepository.save(ItemRequestMapper.toItemRequest(itemRequestDto, user));
+        return ItemRequestMapper.toItemRequestDto(itemRequestRepository
+                .save(ItemRequestMapper.toItemRequest(itemRequestDto, user)));
     }
 
     @Override
@@ -41,43 +44,36 @@ public class ItemRequestServiceImpl implements ItemRequestService {
         userService.checkUser(userId);
         ItemRequest itemRequest = itemRequestRepository
                 .findById(itemRequestId).orElseThrow(() -> new InvalidItemRequestIdException(itemRequestId));
-        return ItemRequestMapper.toItemRequestDtoWithItems(itemRequest,
-                ItemMapper.toItemDto(itemRepository
-                        .findByRequestUserIdOrderByRequestCreationDateDesc(itemRequest.getUser().getId())));
+        return withItems(List.of(itemRequest)).get(0);
     }
 
     @Override
-    public List<ItemRequestDtoWithItems> getItemRequestsByRequestorId(long userId) {
+    public List<ItemRequestDtoWithItems> getItemRequestsByRequestorId(long userId, Integer from, Integer size) {
         userService.checkUser(userId);
-        return itemRequestRepository.findByUserIdOrderByCreationDateDesc(userId)
-                .stream()
-                .map(itemRequest -> ItemRequestMapper.toItemRequestDtoWithItems(itemRequest,
-                        ItemMapper.toItemDto(itemRepository
-                                .findByRequestUserIdOrderByRequestCreationDateDesc(itemRequest.getUser().getId()))))
-                .collect(Collectors.toList());
+        final Pageable page = pagingPolicy.pageOf("own-item-requests", from, size,
+                Sort.by(Sort.Direction.DESC, "creationDate"));
+        return withItems(itemRequestRepository.findByUserId(userId, page).getContent());
     }
 
     @Override
     public List<ItemRequestDtoWithItems> getItemRequests(long userId, Integer from, Integer size) {
         userService.checkUser(userId);
-        if (from == null || size == null) {
-            return itemRequestRepository.findByUserIdNotOrderByCreationDateDesc(userId)
-                    .stream()
-                    .map(itemRequest -> ItemRequestMapper.toItemRequestDtoWithItems(itemRequest,
-                            ItemMapper.toItemDto(itemRepository
-                                    .findByRequestUserIdOrderByRequestCreationDateDesc(itemRequest.getUser().getId()))))
-                    .collect(Collectors.toList());
-        } else if (from < 0 || size <= 0) {
-            throw new InvalidPathVariableException("Incorrect page parameters");
-        } else {
-            int pageNumber = from / size;
-            final Pageable page = PageRequest.of(pageNumber, size, Sort.by(Sort.Direction.DESC, "id"));
-            return itemRequestRepository.findByUserIdNot(userId, page)
-                    .stream()
-                    .map(itemRequest -> ItemRequestMapper.toItemRequestDtoWithItems(itemRequest,
-                            ItemMapper.toItemDto(itemRepository
-                                    .findByRequestUserIdOrderByRequestCreationDateDesc(itemRequest.getUser().getId()))))
-                    .collect(Collectors.toList());
-        }
+        final Pageable page = pagingPolicy.pageOf("item-requests", from, size, Sort.by(Sort.Direction.DESC, "id"));
+        return withItems(itemRequestRepository.findByUserIdNot(userId, page).getContent());
+    }
+
+    /**
+     * Items answering the requests of one page, read in one query.
+     */
+    private List<ItemRequestDtoWithItems> withItems(List<ItemRequest> itemRequests) {
+        Map<Long, List<Item>> items = itemRepository.findByRequestIdIn(itemRequests.stream()
+                        .map(ItemRequest::getId)
+                        .collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.groupingBy(item -> item.getRequest().getId()));
+        return itemRequests.stream()
+                .map(itemRequest -> ItemRequestMapper.toItemRequestDtoWithItems(itemRequest,
+                        ItemMapper.toItemDto(items.getOrDefault(itemRequest.getId(), List.of()))))
+                .collect(Collectors.toList());
     }
 }
\ No newline at end of file
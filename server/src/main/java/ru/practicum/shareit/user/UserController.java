@@ -9,6 +9,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import javax.validation.Valid;
@@ -22,15 +23,15 @@ public class UserController {
     private final UserService userService;
 
     @PostMapping
-    public User createUser(@Valid @RequestBody UserDto userDto) {
+    public UserDto createUser(@Valid @RequestBody UserDto userDto) {
         log.info("Request for user {} creation", userDto.getEmail());
-        return userService.createUser(userDto);
+        return UserMapper.toUserDto(userService.createUser(userDto));
     }
 
     @PatchMapping("/{userId}")
-    public User updateUser(@PathVariable long userId, @Valid @RequestBody UserDto userDto) {
+    public UserDto updateUser(@PathVariable long userId, @Valid @RequestBody UserDto userDto) {
         log.info("Request for user {} update", userId);
-        return userService.updateUser(userId, userDto);
+        return UserMapper.toUserDto(userService.updateUser(userId, userDto));
     }
 
     @DeleteMapping("/{userId}")
@@ -40,14 +41,21 @@ public class UserController {
     }
 
     @GetMapping("/{userId}")
-    public User getUserById(@PathVariable long userId) {
+    public UserDto getUserById(@PathVariable long userId) {
         log.info("Request for get user {}", userId);
-        return userService.getUserById(userId);
+        return UserMapper.toUserDto(userService.getUserById(userId));
+    }
+
+    @GetMapping(params = "ids")
+    public List<UserDto> getUsersByIds(@RequestParam List<Long> ids) {
+        log.info("Request for get users {}", ids);
+        return UserMapper.toUserDto(userService.getUsersByIds(ids));
     }
 
     @GetMapping
-    public List<User> getUsers() {
-        log.info("Request for get all users");
-        return userService.getUsers();
+    public List<UserDto> getUsers(@RequestParam(required = false) Integer from,
+                                  @RequestParam(required = false) Integer size) {
+        log.info("Request for get {} users from {}", size, from);
+        return UserMapper.toUserDto(userService.getUsers(from, size));
     }
 }
\ No newline at end of file
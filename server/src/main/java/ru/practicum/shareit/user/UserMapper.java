@@ -1,6 +1,22 @@
 package ru.practicum.shareit.user;
 
+import java.util.List;
+import java.util.stream.Collectors;
+
 public class UserMapper {
+    public static UserDto toUserDto(User user) {
+        return UserDto.builder()
+                .id(user.getId())
+                .email(user.getEmail())
+                .name(user.getName())
+                .build();
+    }
+
+    public static List<UserDto> toUserDto(List<User> users) {
+        return users.stream()
+                .map(UserMapper::toUserDto)
+                .collect(Collectors.toList());
+    }
 
     public static User toUser(long userId, UserDto userDto) {
         return User.builder()
@@ -14,7 +14,9 @@ public interface UserService {
 
     User getUserById(long userId);
 
-    List<User> getUsers();
+    List<User> getUsers(Integer from, Integer size);
+
+    List<User> getUsersByIds(List<Long> ids);
 
     void checkUser(long userId);
 }
\ No newline at end of file
@@ -1,18 +1,26 @@
 package ru.practicum.shareit.user;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.config.PagingPolicy;
 import ru.practicum.shareit.exception.InvalidEmailException;
 import ru.practicum.shareit.exception.InvalidUserIdException;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 @Transactional(readOnly = true)
 public class UserServiceImpl implements UserService {
     private final UserRepository userRepository;
+    private final PagingPolicy pagingPolicy;
 
     @Transactional
     @Override
@@ -48,8 +56,24 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
-    public List<User> getUsers() {
-        return userRepository.findAll();
+    public List<User> getUsers(Integer from, Integer size) {
+        return userRepository.findAll(pagingPolicy.pageOf("users", from, size, Sort.by(Sort.Direction.ASC, "id")))
+                .getContent();
+    }
+
+    @Override
+    public List<User> getUsersByIds(List<Long> ids) {
+        List<Long> userIds = ids.stream().distinct().collect(Collectors.toList());
+        pagingPolicy.checkBatch("users", userIds.size());
+        if (userIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        Map<Long, User> users = userRepository.findAllById(userIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+        return userIds.stream()
+                .map(users::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
     }
 
     @Override
@@ -1,4 +1,5 @@
-DROP TABLE IF EXISTS users, items, requests, booking, comments CASCADE;
+DROP TABLE IF EXISTS users, items, requests, booking, comments, item_booking_summary, booking_event,
+  booking_event_relay_lock CASCADE;
 
 CREATE TABLE IF NOT EXISTS users (
   id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
@@ -24,6 +25,7 @@ CREATE TABLE IF NOT EXISTS items (
   is_available BOOLEAN,
   owner_id BIGINT,
   request_id BIGINT,
+  version BIGINT NOT NULL DEFAULT 0,
   CONSTRAINT pk_item PRIMARY KEY (id),
   CONSTRAINT fk_items_to_users FOREIGN KEY (owner_id) REFERENCES users(id),
   CONSTRAINT fk_items_to_requests FOREIGN KEY (request_id) REFERENCES requests(id)
@@ -36,11 +38,18 @@ CREATE TABLE IF NOT EXISTS booking (
   status VARCHAR(40),
   booker_id BIGINT,
   item_id BIGINT,
+  owner_id BIGINT,
+  version BIGINT NOT NULL DEFAULT 0,
   CONSTRAINT pk_booking PRIMARY KEY (id),
   CONSTRAINT fk_booking_to_users FOREIGN KEY (booker_id) REFERENCES users(id),
-  CONSTRAINT fk_booking_to_items FOREIGN KEY (item_id) REFERENCES items(id)
+  CONSTRAINT fk_booking_to_items FOREIGN KEY (item_id) REFERENCES items(id),
+  CONSTRAINT fk_booking_to_owners FOREIGN KEY (owner_id) REFERENCES users(id)
 );
 
+CREATE INDEX IF NOT EXISTS idx_booking_owner_start ON booking (owner_id, start_date);
+CREATE INDEX IF NOT EXISTS idx_booking_owner_status_start ON booking (owner_id, status, start_date);
+CREATE INDEX IF NOT EXISTS idx_booking_booker_item_status_end ON booking (booker_id, item_id, status, end_date);
+
 CREATE TABLE IF NOT EXISTS comments (
   id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
   text VARCHAR(4000) NOT NULL,
@@ -50,4 +59,47 @@ CREATE TABLE IF NOT EXISTS comments (
   CONSTRAINT pk_comments PRIMARY KEY (id),
   CONSTRAINT fk_comments_to_users FOREIGN KEY (author_id) REFERENCES users(id),
   CONSTRAINT fk_comments_to_items FOREIGN KEY (item_id) REFERENCES items(id)
-);
\ No newline at end of file
+);
+
+CREATE INDEX IF NOT EXISTS idx_comments_item_created ON comments (item_id, created);
+
+CREATE TABLE IF NOT EXISTS item_booking_summary (
+  item_id BIGINT NOT NULL,
+  last_booking_id BIGINT,
+  last_booker_id BIGINT,
+  last_start_date TIMESTAMP WITHOUT TIME ZONE,
+  last_end_date TIMESTAMP WITHOUT TIME ZONE,
+  last_status VARCHAR(40),
+  next_booking_id BIGINT,
+  next_booker_id BIGINT,
+  next_start_date TIMESTAMP WITHOUT TIME ZONE,
+  next_end_date TIMESTAMP WITHOUT TIME ZONE,
+  next_status VARCHAR(40),
+  refresh_at TIMESTAMP WITHOUT TIME ZONE,
+  CONSTRAINT pk_item_booking_summary PRIMARY KEY (item_id),
+  CONSTRAINT fk_item_booking_summary_to_items FOREIGN KEY (item_id) REFERENCES items(id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_item_booking_summary_refresh_at ON item_booking_summary (refresh_at);
+
+CREATE TABLE IF NOT EXISTS booking_event (
+  id BIGINT GENERATED BY DEFAULT AS IDENTITY NOT NULL,
+  event_offset BIGINT,
+  type VARCHAR(40) NOT NULL,
+  booking_id BIGINT NOT NULL,
+  item_id BIGINT,
+  booker_id BIGINT,
+  owner_id BIGINT,
+  status VARCHAR(40),
+  created TIMESTAMP WITHOUT TIME ZONE,
+  CONSTRAINT pk_booking_event PRIMARY KEY (id),
+  CONSTRAINT uq_booking_event_offset UNIQUE (event_offset)
+);
+
+CREATE TABLE IF NOT EXISTS booking_event_relay_lock (
+  id INTEGER NOT NULL,
+  CONSTRAINT pk_booking_event_relay_lock PRIMARY KEY (id)
+);
+
+INSERT INTO booking_event_relay_lock (id)
+SELECT 1 WHERE NOT EXISTS (SELECT 1 FROM booking_event_relay_lock WHERE id = 1);
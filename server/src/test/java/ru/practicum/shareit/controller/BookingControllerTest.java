@@ -7,12 +7,16 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import ru.practicum.shareit.booking.Booking;
 import ru.practicum.shareit.booking.BookingController;
 import ru.practicum.shareit.booking.BookingMapper;
 import ru.practicum.shareit.booking.BookingService;
 import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.OwnerBookingStream;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingStateSummaryDto;
 import ru.practicum.shareit.comment.CommentDto;
 import ru.practicum.shareit.exception.InvalidPathVariableException;
 import ru.practicum.shareit.item.Item;
@@ -27,6 +31,7 @@ import ru.practicum.shareit.user.User;
 import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static org.hamcrest.Matchers.is;
@@ -35,11 +40,17 @@ import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = BookingController.class)
@@ -53,6 +64,9 @@ public class BookingControllerTest {
     @MockBean
     BookingService bookingService;
 
+    @MockBean
+    OwnerBookingStream ownerBookingStream;
+
     @Autowired
     private MockMvc mvc;
 
@@ -118,7 +132,8 @@ public class BookingControllerTest {
     @Test
     void createBooking() throws Exception {
         when(bookingService.createBooking(anyLong(), any()))
-                .thenReturn(BookingMapper.toBooking(1L, lastBookingDto, getUsersList().get(0), getItemsList().get(0)));
+                .thenReturn(BookingMapper.toBookingDtoWithItemAndBooker(
+                        BookingMapper.toBooking(1L, lastBookingDto, getUsersList().get(0), getItemsList().get(0))));
 
         mvc.perform(post("/bookings")
                         .content(mapper.writeValueAsString(lastBookingDto))
@@ -149,7 +164,7 @@ public class BookingControllerTest {
     @Test
     void updateBookingApproved() throws Exception {
         when(bookingService.updateBooking(anyLong(), anyLong(), anyBoolean()))
-                .thenReturn(getBookingList().get(0));
+                .thenReturn(BookingMapper.toBookingDtoWithItemAndBooker(getBookingList().get(0)));
 
         mvc.perform(patch("/bookings/{bookingId}", 1L)
                         .content(mapper.writeValueAsString(lastBookingDto))
@@ -168,7 +183,7 @@ public class BookingControllerTest {
     @Test
     void updateBookingRejected() throws Exception {
         when(bookingService.updateBooking(anyLong(), anyLong(), anyBoolean()))
-                .thenReturn(getBookingList().get(0));
+                .thenReturn(BookingMapper.toBookingDtoWithItemAndBooker(getBookingList().get(0)));
 
         mvc.perform(patch("/bookings/{bookingId}", 1L)
                         .content(mapper.writeValueAsString(lastBookingDto))
@@ -187,7 +202,7 @@ public class BookingControllerTest {
     @Test
     void getBookings() throws Exception {
         when(bookingService.getBookingByState(anyLong(), anyString(), anyInt(), anyInt()))
-                .thenReturn(getBookingList());
+                .thenReturn(BookingMapper.toBookingDtoWithItemAndBooker(getBookingList()));
 
         mvc.perform(get("/bookings")
                         .header("X-Sharer-User-Id", 1L)
@@ -204,7 +219,7 @@ public class BookingControllerTest {
     @Test
     void getBookingsByUser() throws Exception {
         when(bookingService.getBookingsByOwnerAndState(anyLong(), anyString(), anyInt(), anyInt()))
-                .thenReturn(getBookingList());
+                .thenReturn(BookingMapper.toBookingDtoWithItemAndBooker(getBookingList()));
 
         mvc.perform(get("/bookings/owner")
                         .header("X-Sharer-User-Id", 1L)
@@ -224,7 +239,8 @@ public class BookingControllerTest {
                 List.of(itemDto));
 
         when(bookingService.getBookingById(anyLong(), anyLong()))
-                .thenReturn(BookingMapper.toBooking(1L, lastBookingDto, getUsersList().get(0), getItemsList().get(0)));
+                .thenReturn(BookingMapper.toBookingDtoWithItemAndBooker(
+                        BookingMapper.toBooking(1L, lastBookingDto, getUsersList().get(0), getItemsList().get(0))));
 
         mvc.perform(get("/bookings/{bookingsId}", 1L)
                         .header("X-Sharer-User-Id", 1L)
@@ -237,6 +253,75 @@ public class BookingControllerTest {
                 .andExpect(jsonPath("$.status", is(String.valueOf(lastBookingDto.getStatus()))));
     }
 
+    @Test
+    void getBookingSummaryByOwner() throws Exception {
+        when(bookingService.getBookingSummaryByOwner(anyLong()))
+                .thenReturn(new BookingStateSummaryDto(6L, 1L, 2L, 3L, 2L, 1L));
+
+        mvc.perform(get("/bookings/owner/summary")
+                        .header("X-Sharer-User-Id", 1L)
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.all", is(6L), Long.class))
+                .andExpect(jsonPath("$.current", is(1L), Long.class))
+                .andExpect(jsonPath("$.past", is(2L), Long.class))
+                .andExpect(jsonPath("$.future", is(3L), Long.class))
+                .andExpect(jsonPath("$.waiting", is(2L), Long.class))
+                .andExpect(jsonPath("$.rejected", is(1L), Long.class));
+    }
+
+    @Test
+    void streamBookingsByOwner() throws Exception {
+        when(ownerBookingStream.subscribe(anyLong()))
+                .thenReturn(new SseEmitter());
+
+        mvc.perform(get("/bookings/owner/stream")
+                        .header("X-Sharer-User-Id", 1L)
+                        .accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isOk())
+                .andExpect(request().asyncStarted());
+    }
+
+    @Test
+    void exportBookings() throws Exception {
+        BookingDto first = BookingDto.builder()
+                .id(2L)
+                .startDate(LocalDateTime.of(2030, 2, 1, 10, 0))
+                .endDate(LocalDateTime.of(2030, 2, 2, 10, 0))
+                .itemId(1L)
+                .userId(2L)
+                .status(BookingStatus.WAITING)
+                .build();
+        BookingDto second = BookingDto.builder()
+                .id(1L)
+                .startDate(LocalDateTime.of(2030, 1, 1, 10, 0))
+                .endDate(LocalDateTime.of(2030, 1, 2, 10, 0))
+                .itemId(1L)
+                .userId(2L)
+                .status(BookingStatus.APPROVED)
+                .build();
+        doAnswer(invocation -> {
+            Consumer<BookingDto> consumer = invocation.getArgument(2);
+            consumer.accept(first);
+            consumer.accept(second);
+            return null;
+        }).when(bookingService).exportBookings(anyLong(), anyString(), any());
+
+        MvcResult result = mvc.perform(get("/bookings/export")
+                        .header("X-Sharer-User-Id", 1L)
+                        .param("role", "OWNER"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string(mapper.writeValueAsString(first) + "\n"
+                        + mapper.writeValueAsString(second) + "\n"));
+        verify(bookingService).exportBookings(eq(1L), eq("OWNER"), any());
+    }
+
     private List<User> getUsersList() {
         User user1 = User.builder().id(1L).email("user1@user").name("user1").build();
         User user2 = User.builder().id(2L).email("user2@user").name("user2").build();
@@ -6,11 +6,13 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
 import org.springframework.test.web.servlet.MockMvc;
 import ru.practicum.shareit.booking.BookingStatus;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.comment.Comment;
 import ru.practicum.shareit.comment.CommentDto;
+import ru.practicum.shareit.comment.CommentPageDto;
 import ru.practicum.shareit.item.Item;
 import ru.practicum.shareit.item.ItemController;
 import ru.practicum.shareit.item.ItemMapper;
@@ -29,6 +31,7 @@ import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
@@ -127,7 +130,8 @@ public class ItemControllerTest {
     @Test
     void updateUser() throws Exception {
         when(itemService.updateItem(anyLong(), anyLong(), any()))
-                .thenReturn(ItemMapper.toItem(1L, itemUpdatedDto, getUsersList().get(0), getItemRequestList().get(0)));
+                .thenReturn(ItemMapper.toItemDtoWithOwner(
+                        ItemMapper.toItem(1L, itemUpdatedDto, getUsersList().get(0), getItemRequestList().get(0))));
 
         mvc.perform(patch("/items/{itemId}", 1L)
                         .content(mapper.writeValueAsString(itemUpdatedDto))
@@ -142,6 +146,21 @@ public class ItemControllerTest {
                 .andExpect(jsonPath("$.description", is(itemUpdatedDto.getDescription())));
     }
 
+    @Test
+    void updateItemModifiedConcurrently() throws Exception {
+        when(itemService.updateItem(anyLong(), anyLong(), any()))
+                .thenThrow(new ObjectOptimisticLockingFailureException(Item.class, 1L));
+
+        mvc.perform(patch("/items/{itemId}", 1L)
+                        .content(mapper.writeValueAsString(itemUpdatedDto))
+                        .header("X-Sharer-User-Id", 1L)
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.status", is(409)));
+    }
+
     @Test
     void deleteItem() throws Exception {
         itemService.deleteItem(anyLong(), anyLong());
@@ -188,6 +207,21 @@ public class ItemControllerTest {
                 .andExpect(jsonPath("$.length()").value(2));
     }
 
+    @Test
+    void getItemsByIds() throws Exception {
+        when(itemService.getItemsByIds(1L, List.of(3L, 1L)))
+                .thenReturn(getItemListWithBookingInfo());
+
+        mvc.perform(get("/items")
+                        .header("X-Sharer-User-Id", 1L)
+                        .param("ids", "3,1")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+    }
+
     @Test
     void searchItems() throws Exception {
         when(itemService.searchItems(anyLong(), anyString(), anyInt(), anyInt()))
@@ -222,6 +256,24 @@ public class ItemControllerTest {
                 .andExpect(jsonPath("$.description", is(getItemsList().get(0).getDescription())));
     }
 
+    @Test
+    void getComments() throws Exception {
+        when(itemService.getComments(anyLong(), anyLong(), eq("cursor"), anyInt()))
+                .thenReturn(CommentPageDto.builder().comments(comments).nextCursor("next").build());
+
+        mvc.perform(get("/items/{itemId}/comments", 1L)
+                        .header("X-Sharer-User-Id", 1L)
+                        .param("cursor", "cursor")
+                        .param("size", "1")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.comments.length()").value(1))
+                .andExpect(jsonPath("$.comments[0].text", is(comments.get(0).getText())))
+                .andExpect(jsonPath("$.nextCursor", is("next")));
+    }
+
     private List<User> getUsersList() {
         User user1 = User.builder().id(1L).email("user1@user").name("user1").build();
         User user2 = User.builder().id(2L).email("user2@user").name("user2").build();
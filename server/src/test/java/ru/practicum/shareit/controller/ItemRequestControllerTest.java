@@ -109,7 +109,7 @@ public class ItemRequestControllerTest {
         ItemRequestDto requestDto = ItemRequestMapper.toItemRequestDto(getItemRequestList().get(0));
 
         when(itemRequestService.createItemRequest(anyLong(), any()))
-                .thenReturn(getItemRequestList().get(0));
+                .thenReturn(requestDto);
 
         mvc.perform(post("/requests")
                         .content(mapper.writeValueAsString(requestDto))
@@ -156,7 +156,7 @@ public class ItemRequestControllerTest {
 
     @Test
     void getRequestsByUser() throws Exception {
-        when(itemRequestService.getItemRequestsByRequestorId(anyLong()))
+        when(itemRequestService.getItemRequestsByRequestorId(anyLong(), any(), any()))
                 .thenReturn(getItemRequestWithItemsList());
 
         mvc.perform(get("/requests")
@@ -111,7 +111,7 @@ class UserControllerTest {
 
     @Test
     void getUsers() throws Exception {
-        when(userService.getUsers()).thenReturn(getUsersList());
+        when(userService.getUsers(any(), any())).thenReturn(getUsersList());
 
         mvc.perform(get("/users")
                         .content(mapper.writeValueAsString(userUpdatedDto))
@@ -122,6 +122,18 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.length()").value(2));
     }
 
+    @Test
+    void getUsersByIds() throws Exception {
+        when(userService.getUsersByIds(List.of(2L, 1L))).thenReturn(getUsersList());
+
+        mvc.perform(get("/users")
+                        .param("ids", "2,1")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+    }
+
     @Test
     void getUserById() throws Exception {
         when(userService.getUserById(anyLong())).thenReturn(UserMapper.toUser(2L, userUpdatedDto));
@@ -0,0 +1,120 @@
+package ru.practicum.shareit.service;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.web.context.request.async.DeferredResult;
+import ru.practicum.shareit.booking.BookingEventBroker;
+import ru.practicum.shareit.booking.BookingEventService;
+import ru.practicum.shareit.booking.BookingEventType;
+import ru.practicum.shareit.booking.BookingService;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.dto.BookingDtoWithItemAndBooker;
+import ru.practicum.shareit.booking.dto.BookingEventDto;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.item.ItemMapper;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserMapper;
+
+import javax.persistence.EntityManager;
+import javax.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasProperty;
+import static org.hamcrest.Matchers.hasSize;
+
+@Transactional
+@AutoConfigureTestDatabase
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "shareit.booking-events.relay-interval=3600000",
+        "shareit.booking-events.tail-interval=3600000"})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class BookingEventTest {
+    private final EntityManager em;
+    private final BookingService bookingService;
+    private final BookingEventService eventService;
+    private final BookingEventBroker eventBroker;
+
+    @Test
+    void publishBookingLifecycleEvents() {
+        User user = UserMapper.toUser(DtoCreater.makeUserDto("user@user.com", "user"));
+        em.persist(user);
+        Long userId = user.getId();
+
+        User owner = UserMapper.toUser(DtoCreater.makeUserDto("owner@user.com", "owner"));
+        em.persist(owner);
+        Long ownerId = owner.getId();
+
+        Item item = ItemMapper.toItem(DtoCreater.makeItemDto("Дрель", "Простая дрель", true,
+                null), owner);
+        em.persist(item);
+        Long itemId = item.getId();
+
+        long offset = eventService.publishPendingEvents(100).stream()
+                .mapToLong(BookingEventDto::getOffset)
+                .max()
+                .orElse(0);
+
+        BookingDtoWithItemAndBooker booking = bookingService.createBooking(userId, DtoCreater.makeBookingDto(
+                LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(10), itemId, userId, null));
+        bookingService.updateBooking(ownerId, booking.getId(), true);
+
+        List<BookingEventDto> published = eventService.publishPendingEvents(100);
+        List<BookingEventDto> events = eventService.getEvents(offset, 100);
+
+        assertThat(published, equalTo(events));
+        assertThat(events.stream().map(BookingEventDto::getType).collect(Collectors.toList()),
+                contains(BookingEventType.CREATED, BookingEventType.APPROVED));
+        assertThat(events.stream().map(BookingEventDto::getStatus).collect(Collectors.toList()),
+                contains(BookingStatus.WAITING, BookingStatus.APPROVED));
+        assertThat(events.get(0).getBookingId(), equalTo(booking.getId()));
+        assertThat(events.get(0).getOwnerId(), equalTo(ownerId));
+        assertThat(events.get(0).getOffset(), equalTo(offset + 1));
+        assertThat(events.get(1).getOffset(), equalTo(offset + 2));
+        assertThat(eventService.getEvents(offset + 1, 100), hasSize(1));
+        assertThat(eventService.publishPendingEvents(100), empty());
+    }
+
+    @Test
+    void tailPublishedEventsToWaitingPoll() {
+        User user = UserMapper.toUser(DtoCreater.makeUserDto("poller@user.com", "user"));
+        em.persist(user);
+        Long userId = user.getId();
+
+        User owner = UserMapper.toUser(DtoCreater.makeUserDto("polled@user.com", "owner"));
+        em.persist(owner);
+
+        Item item = ItemMapper.toItem(DtoCreater.makeItemDto("Пила", "Ручная пила", true,
+                null), owner);
+        em.persist(item);
+        Long itemId = item.getId();
+
+        eventService.publishPendingEvents(100);
+        long offset = eventService.getLastOffset();
+        DeferredResult<List<BookingEventDto>> poll = eventBroker.poll(offset, 100, 60_000);
+        assertThat(poll.hasResult(), equalTo(false));
+
+        BookingDtoWithItemAndBooker booking = bookingService.createBooking(userId, DtoCreater.makeBookingDto(
+                LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(10), itemId, userId, null));
+        eventService.publishPendingEvents(100);
+        assertThat(poll.hasResult(), equalTo(false));
+
+        eventBroker.tailEvents();
+
+        @SuppressWarnings("unchecked")
+        List<BookingEventDto> events = (List<BookingEventDto>) poll.getResult();
+        assertThat(events, contains(allOf(
+                hasProperty("offset", equalTo(offset + 1)),
+                hasProperty("type", equalTo(BookingEventType.CREATED)),
+                hasProperty("bookingId", equalTo(booking.getId())))));
+    }
+}
@@ -0,0 +1,47 @@
+package ru.practicum.shareit.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.booking.BookingExpirySweeper;
+import ru.practicum.shareit.booking.BookingService;
+import ru.practicum.shareit.booking.ItemBookingSummarySweeper;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BookingExpirySweeperTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final BookingService bookingService = mock(BookingService.class);
+    private final ItemBookingSummarySweeper summarySweeper = mock(ItemBookingSummarySweeper.class);
+    private final BookingExpirySweeper sweeper = new BookingExpirySweeper(bookingService, summarySweeper,
+            meterRegistry, 10);
+
+    @Test
+    void expireStaleBookingsUntilPartialBatch() {
+        when(bookingService.expireStaleBookings(10)).thenReturn(10, 10, 3);
+
+        sweeper.expireStaleBookings();
+
+        verify(bookingService, times(3)).expireStaleBookings(10);
+        verify(summarySweeper, times(1)).refreshStaleSummaries();
+        assertThat(meterRegistry.counter("shareit.booking-expiry.expired").count(), equalTo(23.0));
+        assertThat(meterRegistry.counter("shareit.booking-expiry.batches").count(), equalTo(3.0));
+        assertThat(meterRegistry.timer("shareit.booking-expiry.run").count(), equalTo(1L));
+    }
+
+    @Test
+    void expireStaleBookingsNothingToExpire() {
+        when(bookingService.expireStaleBookings(10)).thenReturn(0);
+
+        sweeper.expireStaleBookings();
+
+        verify(bookingService, times(1)).expireStaleBookings(10);
+        verify(summarySweeper, never()).refreshStaleSummaries();
+        assertThat(meterRegistry.counter("shareit.booking-expiry.expired").count(), equalTo(0.0));
+    }
+}
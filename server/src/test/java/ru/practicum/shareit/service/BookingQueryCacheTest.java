@@ -0,0 +1,132 @@
+package ru.practicum.shareit.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.practicum.shareit.booking.BookingQueryCache;
+import ru.practicum.shareit.booking.BookingRole;
+import ru.practicum.shareit.booking.dto.BookingDtoWithItemAndBooker;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.aMapWithSize;
+import static org.hamcrest.Matchers.anEmptyMap;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+
+public class BookingQueryCacheTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2024, 1, 1, 12, 0, 0);
+
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private List<BookingDtoWithItemAndBooker> load() {
+        loads.incrementAndGet();
+        return List.of(BookingDtoWithItemAndBooker.builder().id((long) loads.get()).build());
+    }
+
+    @Test
+    void getCachedWithinTimeBucket() {
+        BookingQueryCache cache = new BookingQueryCache(10, Duration.ofSeconds(5));
+
+        cache.get(1L, BookingRole.OWNER, "ALL", 0, 10, NOW, this::load);
+        List<BookingDtoWithItemAndBooker> bookings = cache.get(1L, BookingRole.OWNER, "ALL", 0, 10, NOW.plusSeconds(1), this::load);
+
+        assertThat(loads.get(), equalTo(1));
+        assertThat(bookings, hasSize(1));
+    }
+
+    @Test
+    void getReloadedInNextTimeBucket() {
+        BookingQueryCache cache = new BookingQueryCache(10, Duration.ofSeconds(5));
+
+        cache.get(1L, BookingRole.OWNER, "ALL", 0, 10, NOW, this::load);
+        cache.get(1L, BookingRole.OWNER, "ALL", 0, 10, NOW.plusSeconds(5), this::load);
+
+        assertThat(loads.get(), equalTo(2));
+    }
+
+    @Test
+    void getDifferentKeys() {
+        BookingQueryCache cache = new BookingQueryCache(10, Duration.ofSeconds(5));
+
+        cache.get(1L, BookingRole.OWNER, "ALL", 0, 10, NOW, this::load);
+        cache.get(1L, BookingRole.BOOKER, "ALL", 0, 10, NOW, this::load);
+        cache.get(1L, BookingRole.OWNER, "PAST", 0, 10, NOW, this::load);
+        cache.get(1L, BookingRole.OWNER, "ALL", 10, 10, NOW, this::load);
+        cache.get(2L, BookingRole.OWNER, "ALL", 0, 10, NOW, this::load);
+
+        assertThat(loads.get(), equalTo(5));
+    }
+
+    @Test
+    void evictUsers() {
+        BookingQueryCache cache = new BookingQueryCache(10, Duration.ofSeconds(5));
+
+        cache.get(1L, BookingRole.OWNER, "ALL", 0, 10, NOW, this::load);
+        cache.get(2L, BookingRole.BOOKER, "ALL", 0, 10, NOW, this::load);
+        cache.evictUsers(1L);
+        cache.get(1L, BookingRole.OWNER, "ALL", 0, 10, NOW, this::load);
+        cache.get(2L, BookingRole.BOOKER, "ALL", 0, 10, NOW, this::load);
+
+        assertThat(loads.get(), equalTo(3));
+    }
+
+    @Test
+    void getEvictsEldestWhenFull() {
+        BookingQueryCache cache = new BookingQueryCache(2, Duration.ofSeconds(5));
+
+        cache.get(1L, BookingRole.OWNER, "ALL", 0, 10, NOW, this::load);
+        cache.get(2L, BookingRole.OWNER, "ALL", 0, 10, NOW, this::load);
+        cache.get(3L, BookingRole.OWNER, "ALL", 0, 10, NOW, this::load);
+        cache.get(1L, BookingRole.OWNER, "ALL", 0, 10, NOW, this::load);
+
+        assertThat(loads.get(), equalTo(4));
+    }
+
+    @Test
+    void evictUsersWithoutEntriesKeepsNoVersion() {
+        BookingQueryCache cache = new BookingQueryCache(10, Duration.ofSeconds(5));
+
+        cache.evictUsers(1L, 2L, 3L);
+
+        assertThat(versions(cache), anEmptyMap());
+    }
+
+    @Test
+    void versionDroppedWhenLastEntryOfUserLeaves() {
+        BookingQueryCache cache = new BookingQueryCache(1, Duration.ofSeconds(5));
+
+        cache.get(1L, BookingRole.OWNER, "ALL", 0, 10, NOW, this::load);
+        cache.evictUsers(1L);
+        cache.get(1L, BookingRole.OWNER, "ALL", 0, 10, NOW, this::load);
+        assertThat(versions(cache), aMapWithSize(1));
+
+        cache.get(2L, BookingRole.OWNER, "ALL", 0, 10, NOW, this::load);
+        assertThat(versions(cache), anEmptyMap());
+
+        cache.get(1L, BookingRole.OWNER, "ALL", 0, 10, NOW, this::load);
+        assertThat(loads.get(), equalTo(4));
+    }
+
+    @Test
+    void getLoadedAcrossEvictionNotServed() {
+        BookingQueryCache cache = new BookingQueryCache(10, Duration.ofSeconds(5));
+
+        cache.get(1L, BookingRole.OWNER, "ALL", 0, 10, NOW, () -> {
+            cache.evictUsers(1L);
+            return load();
+        });
+        cache.get(1L, BookingRole.OWNER, "ALL", 0, 10, NOW, this::load);
+
+        assertThat(loads.get(), equalTo(2));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<Long, Long> versions(BookingQueryCache cache) {
+        return (Map<Long, Long>) ReflectionTestUtils.getField(cache, "userVersions");
+    }
+}
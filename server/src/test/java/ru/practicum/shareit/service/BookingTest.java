@@ -6,11 +6,17 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.context.SpringBootTest;
 import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingEvent;
+import ru.practicum.shareit.booking.BookingEventType;
 import ru.practicum.shareit.booking.BookingMapper;
 import ru.practicum.shareit.booking.BookingService;
 import ru.practicum.shareit.booking.BookingState;
 import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.ItemBookingSummary;
+import ru.practicum.shareit.booking.ItemBookingSummaryService;
 import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingDtoWithItemAndBooker;
+import ru.practicum.shareit.booking.dto.BookingStateSummaryDto;
 import ru.practicum.shareit.exception.InvalidBookingIdException;
 import ru.practicum.shareit.exception.InvalidItemIdException;
 import ru.practicum.shareit.exception.InvalidPathVariableException;
@@ -25,15 +31,18 @@ import javax.persistence.EntityManager;
 import javax.persistence.TypedQuery;
 import javax.transaction.Transactional;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasProperty;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @Transactional
@@ -44,6 +53,7 @@ public class BookingTest {
     private static final LocalDateTime NOW = LocalDateTime.now();
     private final EntityManager em;
     private final BookingService service;
+    private final ItemBookingSummaryService summaryService;
 
     @Test
     void createBooking() {
@@ -75,9 +85,38 @@ public class BookingTest {
         assertThat(booking.getStatus(), equalTo(BookingStatus.WAITING));
         assertThat(booking.getItem(), equalTo(item));
         assertThat(booking.getUser(), equalTo(user));
+        assertThat(booking.getOwnerId(), equalTo(ownerId));
         assertThat(booking, equalTo(BookingMapper.toBooking(booking.getId(), bookingDto, user, item)));
     }
 
+    @Test
+    void createBookingRefreshesItemBookingSummary() {
+        User user = UserMapper.toUser(DtoCreater.makeUserDto("user@user.com", "user"));
+        em.persist(user);
+        Long userId = user.getId();
+
+        User owner = UserMapper.toUser(DtoCreater.makeUserDto("owner@user.com", "owner"));
+        em.persist(owner);
+
+        Item item = ItemMapper.toItem(DtoCreater.makeItemDto("Дрель", "Простая дрель", true,
+                null), owner);
+        em.persist(item);
+        Long itemId = item.getId();
+
+        BookingDto bookingDto = DtoCreater.makeBookingDto(LocalDateTime.now().plusDays(1),
+                LocalDateTime.now().plusDays(10), itemId, userId, null);
+
+        BookingDtoWithItemAndBooker booking = service.createBooking(userId, bookingDto);
+        ItemBookingSummary summary = em.find(ItemBookingSummary.class, itemId);
+
+        assertThat(summary, notNullValue());
+        assertThat(summary.getLastBookingId(), nullValue());
+        assertThat(summary.getNextBookingId(), equalTo(booking.getId()));
+        assertThat(summary.getNextStatus(), equalTo(BookingStatus.WAITING));
+        assertThat(summary.getRefreshAt(), equalTo(bookingDto.getStartDate()));
+        assertThat(BookingMapper.toNextBookingDto(summary), equalTo(BookingMapper.toBookingDto(em.find(Booking.class, booking.getId()))));
+    }
+
     @Test
     void createBookingInvalidUserId() {
         User user = UserMapper.toUser(DtoCreater.makeUserDto("user@user.com", "user"));
@@ -292,6 +331,7 @@ public class BookingTest {
 
         assertThat(bookingUpdated.getId(), equalTo(bookingId));
         assertThat(bookingUpdated.getStatus(), equalTo(BookingStatus.APPROVED));
+        assertThat(bookingUpdated.getVersion(), equalTo(1L));
     }
 
     @Test
@@ -394,6 +434,102 @@ public class BookingTest {
         });
     }
 
+    @Test
+    void updateBookingApprovingRejected() {
+        User user = UserMapper.toUser(DtoCreater.makeUserDto("user@user.com", "user"));
+        em.persist(user);
+        Long userId = user.getId();
+
+        User owner = UserMapper.toUser(DtoCreater.makeUserDto("owner@user.com", "owner"));
+        em.persist(owner);
+        Long ownerId = owner.getId();
+
+        Item item = ItemMapper.toItem(DtoCreater.makeItemDto("Дрель", "Простая дрель", true,
+                null), owner);
+        em.persist(item);
+        Long itemId = item.getId();
+
+        Booking booking = BookingMapper.toBooking(DtoCreater.makeBookingDto(LocalDateTime.now().plusDays(1),
+                LocalDateTime.now().plusDays(10), itemId, userId, BookingStatus.REJECTED), user, item);
+        em.persist(booking);
+        Long bookingId = booking.getId();
+
+        assertThrows(InvalidPathVariableException.class, () -> {
+            service.updateBooking(ownerId, bookingId, true);
+        });
+        assertThat(em.find(Booking.class, bookingId).getStatus(), equalTo(BookingStatus.REJECTED));
+    }
+
+    @Test
+    void updateBookingByNotOwner() {
+        User user = UserMapper.toUser(DtoCreater.makeUserDto("user@user.com", "user"));
+        em.persist(user);
+        Long userId = user.getId();
+
+        User owner = UserMapper.toUser(DtoCreater.makeUserDto("owner@user.com", "owner"));
+        em.persist(owner);
+
+        Item item = ItemMapper.toItem(DtoCreater.makeItemDto("Дрель", "Простая дрель", true,
+                null), owner);
+        em.persist(item);
+        Long itemId = item.getId();
+
+        Booking booking = BookingMapper.toBooking(DtoCreater.makeBookingDto(LocalDateTime.now().plusDays(1),
+                LocalDateTime.now().plusDays(10), itemId, userId, BookingStatus.WAITING), user, item);
+        em.persist(booking);
+        Long bookingId = booking.getId();
+
+        assertThrows(InvalidBookingIdException.class, () -> {
+            service.updateBooking(userId, bookingId, true);
+        });
+        assertThat(em.find(Booking.class, bookingId).getStatus(), equalTo(BookingStatus.WAITING));
+    }
+
+    @Test
+    void expireStaleBookings() {
+        User user = UserMapper.toUser(DtoCreater.makeUserDto("user@user.com", "user"));
+        em.persist(user);
+        Long userId = user.getId();
+
+        User owner = UserMapper.toUser(DtoCreater.makeUserDto("owner@user.com", "owner"));
+        em.persist(owner);
+
+        Item item = ItemMapper.toItem(DtoCreater.makeItemDto("Дрель", "Простая дрель", true,
+                null), owner);
+        em.persist(item);
+        Long itemId = item.getId();
+
+        Booking stale = BookingMapper.toBooking(DtoCreater.makeBookingDto(LocalDateTime.now().minusDays(1),
+                LocalDateTime.now().plusDays(1), itemId, userId, BookingStatus.WAITING), user, item);
+        Booking future = BookingMapper.toBooking(DtoCreater.makeBookingDto(LocalDateTime.now().plusDays(1),
+                LocalDateTime.now().plusDays(2), itemId, userId, BookingStatus.WAITING), user, item);
+        Booking approved = BookingMapper.toBooking(DtoCreater.makeBookingDto(LocalDateTime.now().minusDays(2),
+                LocalDateTime.now().minusDays(1), itemId, userId, BookingStatus.APPROVED), user, item);
+        List.of(stale, future, approved).forEach(em::persist);
+        em.persist(ItemBookingSummary.builder().itemId(itemId).build());
+
+        int expired = service.expireStaleBookings(10);
+
+        assertThat(expired, equalTo(1));
+        assertThat(em.find(Booking.class, stale.getId()).getStatus(), equalTo(BookingStatus.REJECTED));
+        assertThat(em.find(Booking.class, stale.getId()).getVersion(), equalTo(1L));
+        assertThat(em.find(Booking.class, future.getId()).getStatus(), equalTo(BookingStatus.WAITING));
+        assertThat(em.find(Booking.class, approved.getId()).getStatus(), equalTo(BookingStatus.APPROVED));
+        assertThat(em.find(ItemBookingSummary.class, itemId).isStale(LocalDateTime.now()), equalTo(true));
+        assertThat(summaryService.getSummaries(List.of(itemId), LocalDateTime.now()).get(itemId).getLastStatus(),
+                equalTo(BookingStatus.REJECTED));
+        assertThat(em.createQuery("select e from BookingEvent e where e.bookingId = :bookingId",
+                        BookingEvent.class)
+                .setParameter("bookingId", stale.getId())
+                .getResultList(), contains(allOf(
+                hasProperty("type", equalTo(BookingEventType.EXPIRED)),
+                hasProperty("status", equalTo(BookingStatus.REJECTED)),
+                hasProperty("itemId", equalTo(itemId)),
+                hasProperty("bookerId", equalTo(userId)),
+                hasProperty("ownerId", equalTo(owner.getId())))));
+        assertThat(service.expireStaleBookings(10), equalTo(0));
+    }
+
     @Test
     void updateBookingInvalidRejecting() {
         User user = UserMapper.toUser(DtoCreater.makeUserDto("user@user.com", "user"));
@@ -438,14 +574,15 @@ public class BookingTest {
         em.persist(booking);
         Long bookingId = booking.getId();
 
-        Booking bookingGet = service.getBookingById(ownerId, bookingId);
+        BookingDtoWithItemAndBooker bookingGet = service.getBookingById(ownerId, bookingId);
 
         assertThat(bookingGet.getId(), equalTo(bookingId));
         assertThat(bookingGet.getStartDate(), equalTo(booking.getStartDate()));
         assertThat(bookingGet.getEndDate(), equalTo(booking.getEndDate()));
         assertThat(bookingGet.getStatus(), equalTo(booking.getStatus()));
-        assertThat(bookingGet.getUser(), equalTo(booking.getUser()));
-        assertThat(bookingGet.getItem(), equalTo(booking.getItem()));
+        assertThat(bookingGet.getUser().getId(), equalTo(userId));
+        assertThat(bookingGet.getItem().getId(), equalTo(itemId));
+        assertThat(bookingGet.getItem().getUser().getId(), equalTo(ownerId));
     }
 
     @Test
@@ -540,7 +677,7 @@ public class BookingTest {
 
         bookingsDto.forEach(bookingDto -> em.persist(BookingMapper.toBooking(bookingDto, user, item)));
 
-        List<Booking> bookingsGet = service.getBookingByState(userId, String.valueOf(BookingState.WAITING), null, null);
+        List<BookingDtoWithItemAndBooker> bookingsGet = service.getBookingByState(userId, String.valueOf(BookingState.WAITING), null, null);
 
         assertThat(bookingsGet, hasSize(1));
         for (BookingDto bookingDto : bookingsDto) {
@@ -578,7 +715,7 @@ public class BookingTest {
 
         bookingsDto.forEach(bookingDto -> em.persist(BookingMapper.toBooking(bookingDto, user, item)));
 
-        List<Booking> bookingsGet = service.getBookingByState(userId, String.valueOf(BookingState.REJECTED), null, null);
+        List<BookingDtoWithItemAndBooker> bookingsGet = service.getBookingByState(userId, String.valueOf(BookingState.REJECTED), null, null);
 
         assertThat(bookingsGet, hasSize(2));
         for (BookingDto bookingDto : bookingsDto) {
@@ -588,6 +725,55 @@ public class BookingTest {
         }
     }
 
+    @Test
+    void getBookingSummaryByOwner() {
+        User user = UserMapper.toUser(DtoCreater.makeUserDto("user@user.com", "user"));
+        em.persist(user);
+        Long userId = user.getId();
+
+        User owner = UserMapper.toUser(DtoCreater.makeUserDto("owner@user.com", "owner"));
+        em.persist(owner);
+        Long ownerId = owner.getId();
+
+        Item item = ItemMapper.toItem(DtoCreater.makeItemDto("Дрель", "Простая дрель", true,
+                null), owner);
+        em.persist(item);
+        Long itemId = item.getId();
+
+        List<BookingDto> bookingsDto = List.of(
+                DtoCreater.makeBookingDto(LocalDateTime.now().plusDays(1),
+                        LocalDateTime.now().plusDays(10), itemId, userId, BookingStatus.WAITING),
+                DtoCreater.makeBookingDto(LocalDateTime.now().plusDays(1),
+                        LocalDateTime.now().plusDays(10), itemId, userId, BookingStatus.APPROVED),
+                DtoCreater.makeBookingDto(LocalDateTime.now().plusDays(1),
+                        LocalDateTime.now().plusDays(10), itemId, userId, BookingStatus.REJECTED),
+                DtoCreater.makeBookingDto(LocalDateTime.now().minusDays(1),
+                        LocalDateTime.now().plusDays(10), itemId, userId, BookingStatus.APPROVED),
+                DtoCreater.makeBookingDto(LocalDateTime.now().minusDays(15),
+                        LocalDateTime.now().minusDays(10), itemId, userId, BookingStatus.REJECTED));
+
+        bookingsDto.forEach(bookingDto -> em.persist(BookingMapper.toBooking(bookingDto, user, item)));
+
+        BookingStateSummaryDto ownerSummary = service.getBookingSummaryByOwner(ownerId);
+        BookingStateSummaryDto bookerSummary = service.getBookingSummary(userId);
+
+        assertThat(ownerSummary.getAll(), equalTo(5L));
+        assertThat(ownerSummary.getCurrent(), equalTo(1L));
+        assertThat(ownerSummary.getPast(), equalTo(1L));
+        assertThat(ownerSummary.getFuture(), equalTo(3L));
+        assertThat(ownerSummary.getWaiting(), equalTo(1L));
+        assertThat(ownerSummary.getRejected(), equalTo(2L));
+        assertThat(bookerSummary, equalTo(ownerSummary));
+        assertThat(service.getBookingSummaryByOwner(userId).getAll(), equalTo(0L));
+    }
+
+    @Test
+    void getBookingSummaryInvalidUserId() {
+        assertThrows(InvalidUserIdException.class, () -> {
+            service.getBookingSummary(DtoCreater.INVALID_ID);
+        });
+    }
+
     @Test
     void getBookingByStateBlank() {
         User user = UserMapper.toUser(DtoCreater.makeUserDto("user@user.com", "user"));
@@ -616,7 +802,7 @@ public class BookingTest {
 
         bookingsDto.forEach(bookingDto -> em.persist(BookingMapper.toBooking(bookingDto, user, item)));
 
-        List<Booking> bookingsGet = service.getBookingByState(userId, null, null, null);
+        List<BookingDtoWithItemAndBooker> bookingsGet = service.getBookingByState(userId, null, null, null);
 
         assertThat(bookingsGet, hasSize(5));
     }
@@ -650,7 +836,7 @@ public class BookingTest {
 
         bookingsDto.forEach(bookingDto -> em.persist(BookingMapper.toBooking(bookingDto, user, item)));
 
-        List<Booking> bookingsGet = service.getBookingByState(userId, String.valueOf(BookingState.ALL), null, null);
+        List<BookingDtoWithItemAndBooker> bookingsGet = service.getBookingByState(userId, String.valueOf(BookingState.ALL), null, null);
 
         assertThat(bookingsGet, hasSize(5));
     }
@@ -684,7 +870,7 @@ public class BookingTest {
 
         bookingsDto.forEach(bookingDto -> em.persist(BookingMapper.toBooking(bookingDto, user, item)));
 
-        List<Booking> bookingsGet = service.getBookingByState(userId, String.valueOf(BookingState.CURRENT), null, null);
+        List<BookingDtoWithItemAndBooker> bookingsGet = service.getBookingByState(userId, String.valueOf(BookingState.CURRENT), null, null);
 
         assertThat(bookingsGet, hasSize(1));
     }
@@ -718,7 +904,7 @@ public class BookingTest {
 
         bookingsDto.forEach(bookingDto -> em.persist(BookingMapper.toBooking(bookingDto, user, item)));
 
-        List<Booking> bookingsGet = service.getBookingByState(userId, String.valueOf(BookingState.FUTURE), null, null);
+        List<BookingDtoWithItemAndBooker> bookingsGet = service.getBookingByState(userId, String.valueOf(BookingState.FUTURE), null, null);
 
         assertThat(bookingsGet, hasSize(3));
     }
@@ -751,7 +937,7 @@ public class BookingTest {
 
         bookingsDto.forEach(bookingDto -> em.persist(BookingMapper.toBooking(bookingDto, user, item)));
 
-        List<Booking> bookingsGet = service.getBookingByState(userId, String.valueOf(BookingState.PAST), null, null);
+        List<BookingDtoWithItemAndBooker> bookingsGet = service.getBookingByState(userId, String.valueOf(BookingState.PAST), null, null);
 
         assertThat(bookingsGet, hasSize(1));
     }
@@ -796,7 +982,7 @@ public class BookingTest {
 
         bookingsDto.forEach(bookingDto -> em.persist(BookingMapper.toBooking(bookingDto, user, item)));
 
-        List<Booking> bookingsGet = service.getBookingByState(userId, String.valueOf(BookingState.ALL), 2, 2);
+        List<BookingDtoWithItemAndBooker> bookingsGet = service.getBookingByState(userId, String.valueOf(BookingState.ALL), 2, 2);
 
         assertThat(bookingsGet, hasSize(2));
     }
@@ -830,7 +1016,7 @@ public class BookingTest {
 
         bookingsDto.forEach(bookingDto -> em.persist(BookingMapper.toBooking(bookingDto, user, item)));
 
-        List<Booking> bookingsGet = service.getBookingByState(userId, String.valueOf(BookingState.PAST), 0, 10);
+        List<BookingDtoWithItemAndBooker> bookingsGet = service.getBookingByState(userId, String.valueOf(BookingState.PAST), 0, 10);
 
         assertThat(bookingsGet, hasSize(1));
     }
@@ -864,7 +1050,7 @@ public class BookingTest {
 
         bookingsDto.forEach(bookingDto -> em.persist(BookingMapper.toBooking(bookingDto, user, item)));
 
-        List<Booking> bookingsGet = service.getBookingByState(userId, String.valueOf(BookingState.FUTURE), 2, 2);
+        List<BookingDtoWithItemAndBooker> bookingsGet = service.getBookingByState(userId, String.valueOf(BookingState.FUTURE), 2, 2);
 
         assertThat(bookingsGet, hasSize(1));
     }
@@ -898,7 +1084,7 @@ public class BookingTest {
 
         bookingsDto.forEach(bookingDto -> em.persist(BookingMapper.toBooking(bookingDto, user, item)));
 
-        List<Booking> bookingsGet = service.getBookingByState(userId, String.valueOf(BookingState.CURRENT), 1, 2);
+        List<BookingDtoWithItemAndBooker> bookingsGet = service.getBookingByState(userId, String.valueOf(BookingState.CURRENT), 1, 2);
 
         assertThat(bookingsGet, hasSize(1));
     }
@@ -932,7 +1118,7 @@ public class BookingTest {
 
         bookingsDto.forEach(bookingDto -> em.persist(BookingMapper.toBooking(bookingDto, user, item)));
 
-        List<Booking> bookingsGet = service.getBookingByState(userId, String.valueOf(BookingState.REJECTED), 0, 2);
+        List<BookingDtoWithItemAndBooker> bookingsGet = service.getBookingByState(userId, String.valueOf(BookingState.REJECTED), 0, 2);
 
         assertThat(bookingsGet, hasSize(2));
         for (BookingDto bookingDto : bookingsDto) {
@@ -971,7 +1157,7 @@ public class BookingTest {
 
         bookingsDto.forEach(bookingDto -> em.persist(BookingMapper.toBooking(bookingDto, user, item)));
 
-        List<Booking> bookingsGet = service.getBookingByState(userId, String.valueOf(BookingState.WAITING), 0, 2);
+        List<BookingDtoWithItemAndBooker> bookingsGet = service.getBookingByState(userId, String.valueOf(BookingState.WAITING), 0, 2);
 
         assertThat(bookingsGet, hasSize(1));
         for (BookingDto bookingDto : bookingsDto) {
@@ -1029,7 +1215,7 @@ public class BookingTest {
         bookingsItem1Dto.forEach(bookingDto -> em.persist(BookingMapper.toBooking(bookingDto, owner, item)));
         bookingsItem2Dto.forEach(bookingDto -> em.persist(BookingMapper.toBooking(bookingDto, user, item2)));
 
-        List<Booking> bookingsGet = service.getBookingsByOwnerAndState(ownerId,
+        List<BookingDtoWithItemAndBooker> bookingsGet = service.getBookingsByOwnerAndState(ownerId,
                 String.valueOf(BookingState.WAITING), null, null);
 
         assertThat(bookingsGet, hasSize(1));
@@ -1077,7 +1263,7 @@ public class BookingTest {
         bookingsItem1Dto.forEach(bookingDto -> em.persist(BookingMapper.toBooking(bookingDto, owner, item)));
         bookingsItem2Dto.forEach(bookingDto -> em.persist(BookingMapper.toBooking(bookingDto, user, item2)));
 
-        List<Booking> bookingsGet = service.getBookingsByOwnerAndState(ownerId,
+        List<BookingDtoWithItemAndBooker> bookingsGet = service.getBookingsByOwnerAndState(ownerId,
                 String.valueOf(BookingState.REJECTED), null, null);
 
         assertThat(bookingsGet, hasSize(1));
@@ -1125,7 +1311,7 @@ public class BookingTest {
         bookingsItem1Dto.forEach(bookingDto -> em.persist(BookingMapper.toBooking(bookingDto, owner, item)));
         bookingsItem2Dto.forEach(bookingDto -> em.persist(BookingMapper.toBooking(bookingDto, user, item2)));
 
-        List<Booking> bookingsGet = service.getBookingsByOwnerAndState(ownerId, null, null, null);
+        List<BookingDtoWithItemAndBooker> bookingsGet = service.getBookingsByOwnerAndState(ownerId, null, null, null);
 
         assertThat(bookingsGet, hasSize(3));
     }
@@ -1167,7 +1353,7 @@ public class BookingTest {
         bookingsItem1Dto.forEach(bookingDto -> em.persist(BookingMapper.toBooking(bookingDto, owner, item)));
         bookingsItem2Dto.forEach(bookingDto -> em.persist(BookingMapper.toBooking(bookingDto, user, item2)));
 
-        List<Booking> bookingsGet = service.getBookingsByOwnerAndState(ownerId,
+        List<BookingDtoWithItemAndBooker> bookingsGet = service.getBookingsByOwnerAndState(ownerId,
                 String.valueOf(BookingState.ALL), null, null);
 
         assertThat(bookingsGet, hasSize(3));
@@ -1210,7 +1396,7 @@ public class BookingTest {
         bookingsItem1Dto.forEach(bookingDto -> em.persist(BookingMapper.toBooking(bookingDto, owner, item)));
         bookingsItem2Dto.forEach(bookingDto -> em.persist(BookingMapper.toBooking(bookingDto, user, item2)));
 
-        List<Booking> bookingsGet = service.getBookingsByOwnerAndState(ownerId,
+        List<BookingDtoWithItemAndBooker> bookingsGet = service.getBookingsByOwnerAndState(ownerId,
                 String.valueOf(BookingState.CURRENT), null, null);
 
         assertThat(bookingsGet, hasSize(0));
@@ -1253,7 +1439,7 @@ public class BookingTest {
         bookingsItem1Dto.forEach(bookingDto -> em.persist(BookingMapper.toBooking(bookingDto, owner, item)));
         bookingsItem2Dto.forEach(bookingDto -> em.persist(BookingMapper.toBooking(bookingDto, user, item2)));
 
-        List<Booking> bookingsGet = service.getBookingsByOwnerAndState(ownerId,
+        List<BookingDtoWithItemAndBooker> bookingsGet = service.getBookingsByOwnerAndState(ownerId,
                 String.valueOf(BookingState.FUTURE), null, null);
 
         assertThat(bookingsGet, hasSize(3));
@@ -1296,7 +1482,7 @@ public class BookingTest {
         bookingsItem1Dto.forEach(bookingDto -> em.persist(BookingMapper.toBooking(bookingDto, owner, item)));
         bookingsItem2Dto.forEach(bookingDto -> em.persist(BookingMapper.toBooking(bookingDto, user, item2)));
 
-        List<Booking> bookingsGet = service.getBookingsByOwnerAndState(ownerId,
+        List<BookingDtoWithItemAndBooker> bookingsGet = service.getBookingsByOwnerAndState(ownerId,
                 String.valueOf(BookingState.PAST), null, null);
 
         assertThat(bookingsGet, hasSize(0));
@@ -1353,7 +1539,7 @@ public class BookingTest {
         bookingsItem1Dto.forEach(bookingDto -> em.persist(BookingMapper.toBooking(bookingDto, owner, item)));
         bookingsItem2Dto.forEach(bookingDto -> em.persist(BookingMapper.toBooking(bookingDto, user, item2)));
 
-        List<Booking> bookingsGet = service.getBookingsByOwnerAndState(ownerId,
+        List<BookingDtoWithItemAndBooker> bookingsGet = service.getBookingsByOwnerAndState(ownerId,
                 String.valueOf(BookingState.WAITING), 0, 2);
 
         assertThat(bookingsGet, hasSize(1));
@@ -1401,7 +1587,7 @@ public class BookingTest {
         bookingsItem1Dto.forEach(bookingDto -> em.persist(BookingMapper.toBooking(bookingDto, owner, item)));
         bookingsItem2Dto.forEach(bookingDto -> em.persist(BookingMapper.toBooking(bookingDto, user, item2)));
 
-        List<Booking> bookingsGet = service.getBookingsByOwnerAndState(ownerId,
+        List<BookingDtoWithItemAndBooker> bookingsGet = service.getBookingsByOwnerAndState(ownerId,
                 String.valueOf(BookingState.REJECTED), 0, 1);
 
         assertThat(bookingsGet, hasSize(1));
@@ -1449,7 +1635,7 @@ public class BookingTest {
         bookingsItem1Dto.forEach(bookingDto -> em.persist(BookingMapper.toBooking(bookingDto, owner, item)));
         bookingsItem2Dto.forEach(bookingDto -> em.persist(BookingMapper.toBooking(bookingDto, user, item2)));
 
-        List<Booking> bookingsGet = service.getBookingsByOwnerAndState(ownerId,
+        List<BookingDtoWithItemAndBooker> bookingsGet = service.getBookingsByOwnerAndState(ownerId,
                 String.valueOf(BookingState.ALL), 2, 2);
 
         assertThat(bookingsGet, hasSize(1));
@@ -1492,7 +1678,7 @@ public class BookingTest {
         bookingsItem1Dto.forEach(bookingDto -> em.persist(BookingMapper.toBooking(bookingDto, owner, item)));
         bookingsItem2Dto.forEach(bookingDto -> em.persist(BookingMapper.toBooking(bookingDto, user, item2)));
 
-        List<Booking> bookingsGet = service.getBookingsByOwnerAndState(ownerId,
+        List<BookingDtoWithItemAndBooker> bookingsGet = service.getBookingsByOwnerAndState(ownerId,
                 String.valueOf(BookingState.CURRENT), 0, 2);
 
         assertThat(bookingsGet, hasSize(0));
@@ -1535,7 +1721,7 @@ public class BookingTest {
         bookingsItem1Dto.forEach(bookingDto -> em.persist(BookingMapper.toBooking(bookingDto, owner, item)));
         bookingsItem2Dto.forEach(bookingDto -> em.persist(BookingMapper.toBooking(bookingDto, user, item2)));
 
-        List<Booking> bookingsGet = service.getBookingsByOwnerAndState(ownerId,
+        List<BookingDtoWithItemAndBooker> bookingsGet = service.getBookingsByOwnerAndState(ownerId,
                 String.valueOf(BookingState.FUTURE), 1, 2);
 
         assertThat(bookingsGet, hasSize(2));
@@ -1578,7 +1764,7 @@ public class BookingTest {
         bookingsItem1Dto.forEach(bookingDto -> em.persist(BookingMapper.toBooking(bookingDto, owner, item)));
         bookingsItem2Dto.forEach(bookingDto -> em.persist(BookingMapper.toBooking(bookingDto, user, item2)));
 
-        List<Booking> bookingsGet = service.getBookingsByOwnerAndState(ownerId,
+        List<BookingDtoWithItemAndBooker> bookingsGet = service.getBookingsByOwnerAndState(ownerId,
                 String.valueOf(BookingState.PAST), 1, 5);
 
         assertThat(bookingsGet, hasSize(0));
@@ -1605,4 +1791,96 @@ public class BookingTest {
             service.getBookingsByOwnerAndState(userId, "String.valueOf(BookingState.WAITING)", 0, 1);
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    void exportBookings() {
+        User user = UserMapper.toUser(DtoCreater.makeUserDto("user@user.com", "user"));
+        em.persist(user);
+        Long userId = user.getId();
+
+        User owner = UserMapper.toUser(DtoCreater.makeUserDto("owner@user.com", "owner"));
+        em.persist(owner);
+        Long ownerId = owner.getId();
+
+        Item item = ItemMapper.toItem(DtoCreater.makeItemDto("Дрель", "Простая дрель", true,
+                null), owner);
+        em.persist(item);
+        Long itemId = item.getId();
+
+        Booking past = BookingMapper.toBooking(DtoCreater.makeBookingDto(NOW.minusDays(10), NOW.minusDays(5),
+                itemId, userId, BookingStatus.APPROVED), user, item);
+        Booking future = BookingMapper.toBooking(DtoCreater.makeBookingDto(NOW.plusDays(5), NOW.plusDays(10),
+                itemId, userId, BookingStatus.WAITING), user, item);
+        em.persist(past);
+        em.persist(future);
+
+        List<BookingDto> byBooker = new ArrayList<>();
+        service.exportBookings(userId, "BOOKER", byBooker::add);
+        List<BookingDto> byOwner = new ArrayList<>();
+        service.exportBookings(ownerId, "OWNER", byOwner::add);
+        List<BookingDto> ofOwnerAsBooker = new ArrayList<>();
+        service.exportBookings(ownerId, "BOOKER", ofOwnerAsBooker::add);
+
+        assertThat(byBooker, hasSize(2));
+        assertThat(byBooker.get(0), allOf(hasProperty("id", equalTo(future.getId())),
+                hasProperty("itemId", equalTo(itemId)),
+                hasProperty("userId", equalTo(userId)),
+                hasProperty("status", equalTo(BookingStatus.WAITING))));
+        assertThat(byBooker.get(1), allOf(hasProperty("id", equalTo(past.getId())),
+                hasProperty("status", equalTo(BookingStatus.APPROVED))));
+        assertThat(byOwner, equalTo(byBooker));
+        assertThat(ofOwnerAsBooker, hasSize(0));
+    }
+
+    @Test
+    void exportBookingsAcrossPages() {
+        User user = UserMapper.toUser(DtoCreater.makeUserDto("user@user.com", "user"));
+        em.persist(user);
+        Long userId = user.getId();
+
+        User owner = UserMapper.toUser(DtoCreater.makeUserDto("owner@user.com", "owner"));
+        em.persist(owner);
+
+        Item item = ItemMapper.toItem(DtoCreater.makeItemDto("Дрель", "Простая дрель", true,
+                null), owner);
+        em.persist(item);
+        Long itemId = item.getId();
+
+        List<Long> expectedIds = new ArrayList<>();
+        for (int i = 0; i < 1001; i++) {
+            LocalDateTime start = NOW.minusDays(i / 2 + 1);
+            Booking booking = BookingMapper.toBooking(DtoCreater.makeBookingDto(start, start.plusHours(1),
+                    itemId, userId, BookingStatus.APPROVED), user, item);
+            em.persist(booking);
+            expectedIds.add(booking.getId());
+        }
+        for (int i = 0; i < expectedIds.size(); i += 2) {
+            if (i + 1 < expectedIds.size()) {
+                expectedIds.set(i, expectedIds.set(i + 1, expectedIds.get(i)));
+            }
+        }
+
+        List<Long> exportedIds = new ArrayList<>();
+        service.exportBookings(userId, "BOOKER", booking -> exportedIds.add(booking.getId()));
+
+        assertThat(exportedIds, equalTo(expectedIds));
+    }
+
+    @Test
+    void exportBookingsInvalidRole() {
+        User user = UserMapper.toUser(DtoCreater.makeUserDto("user@user.com", "user"));
+        em.persist(user);
+        Long userId = user.getId();
+
+        assertThrows(InvalidPathVariableException.class, () -> {
+            service.exportBookings(userId, "ADMIN", bookingDto -> { });
+        });
+    }
+
+    @Test
+    void exportBookingsInvalidUser() {
+        assertThrows(InvalidUserIdException.class, () -> {
+            service.exportBookings(100L, "BOOKER", bookingDto -> { });
+        });
+    }
+}
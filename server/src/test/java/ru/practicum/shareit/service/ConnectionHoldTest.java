@@ -0,0 +1,183 @@
+package ru.practicum.shareit.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.ModelAndView;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import ru.practicum.shareit.booking.BookingService;
+import ru.practicum.shareit.booking.dto.BookingDtoWithItemAndBooker;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.user.UserService;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.hasItems;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Pool occupancy per request: every JDBC connection a request checks out must be returned before the
+ * controller result is rendered. An interceptor marks the start of rendering in postHandle, with
+ * open-session-in-view the connection would only be closed after it. An export hands bookings to its consumer
+ * only while no connection is checked out.
+ */
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+@SpringBootTest(properties = {
+        "shareit.booking-events.relay-interval=3600000",
+        "shareit.booking-summary.sweep-interval=3600000",
+        "shareit.booking-expiry.interval=3600000"})
+public class ConnectionHoldTest {
+    private static final String OPEN = "open";
+    private static final String CLOSE = "close";
+    private static final String CONSUME = "consume";
+    private static final String RENDER = "render";
+    private static final List<String> EVENTS = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private BookingService bookingService;
+
+    private long ownerId;
+    private long bookerId;
+    private long itemId;
+    private long bookingId;
+
+    @TestConfiguration
+    static class HoldRecordingConfig implements WebMvcConfigurer {
+        @Bean
+        static BeanPostProcessor holdRecordingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource ? new HoldRecordingDataSource((DataSource) bean) : bean;
+                }
+            };
+        }
+
+        @Override
+        public void addInterceptors(InterceptorRegistry registry) {
+            registry.addInterceptor(new HandlerInterceptor() {
+                @Override
+                public void postHandle(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                       ModelAndView modelAndView) {
+                    EVENTS.add(RENDER);
+                }
+            });
+        }
+    }
+
+    private static class HoldRecordingDataSource extends DelegatingDataSource {
+        HoldRecordingDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            Connection connection = super.getConnection();
+            EVENTS.add(OPEN);
+            return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{Connection.class},
+                    (proxy, method, args) -> {
+                        if ("close".equals(method.getName())) {
+                            EVENTS.add(CLOSE);
+                        }
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+    }
+
+    @BeforeEach
+    void createBooking() {
+        String suffix = String.valueOf(System.nanoTime());
+        ownerId = userService.createUser(DtoCreater.makeUserDto("owner" + suffix + "@user.com", "owner")).getId();
+        bookerId = userService.createUser(DtoCreater.makeUserDto("booker" + suffix + "@user.com", "booker"))
+                .getId();
+        itemId = itemService.createItem(ownerId, DtoCreater.makeItemDto("Дрель", "Простая дрель", true, null))
+                .getId();
+        BookingDtoWithItemAndBooker booking = bookingService.createBooking(bookerId, DtoCreater.makeBookingDto(
+                LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2), itemId, bookerId, null));
+        bookingId = booking.getId();
+    }
+
+    private void assertConnectionsClosedBeforeRendering(MockHttpServletRequestBuilder request) throws Exception {
+        EVENTS.clear();
+        mvc.perform(request).andExpect(status().isOk());
+        assertThat(EVENTS, hasItems(CLOSE, RENDER));
+        assertThat(EVENTS.subList(EVENTS.indexOf(RENDER), EVENTS.size()), not(hasItem(CLOSE)));
+    }
+
+    @Test
+    void getBookingById() throws Exception {
+        assertConnectionsClosedBeforeRendering(get("/bookings/{bookingId}", bookingId)
+                .header("X-Sharer-User-Id", ownerId));
+    }
+
+    @Test
+    void getBookingsByOwner() throws Exception {
+        assertConnectionsClosedBeforeRendering(get("/bookings/owner").header("X-Sharer-User-Id", ownerId));
+    }
+
+    @Test
+    void getBookingsByBooker() throws Exception {
+        assertConnectionsClosedBeforeRendering(get("/bookings").header("X-Sharer-User-Id", bookerId));
+    }
+
+    @Test
+    void getItemById() throws Exception {
+        assertConnectionsClosedBeforeRendering(get("/items/{itemId}", itemId).header("X-Sharer-User-Id", ownerId));
+    }
+
+    @Test
+    void exportBookings() {
+        EVENTS.clear();
+        bookingService.exportBookings(bookerId, "BOOKER", booking -> EVENTS.add(CONSUME));
+        assertThat(EVENTS, hasItems(OPEN, CONSUME));
+        int open = 0;
+        for (String event : EVENTS) {
+            if (OPEN.equals(event)) {
+                open++;
+            } else if (CLOSE.equals(event)) {
+                open--;
+            } else if (CONSUME.equals(event)) {
+                assertThat(open, equalTo(0));
+            }
+        }
+    }
+}
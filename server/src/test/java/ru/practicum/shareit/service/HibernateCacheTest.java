@@ -0,0 +1,59 @@
+package ru.practicum.shareit.service;
+
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.practicum.shareit.config.CacheRegionProperties;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemDtoWithOwner;
+import ru.practicum.shareit.user.UserService;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * Second-level cache entries expire shareit.cache.ttl after being written, so a change made through another server
+ * instance, which this instance's cache doesn't see, is served after at most that long. Writes don't depend on the
+ * cache at all.
+ */
+@AutoConfigureTestDatabase
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE)
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class HibernateCacheTest {
+    private final UserService userService;
+    private final ItemService itemService;
+    private final JdbcTemplate jdbcTemplate;
+    private final CacheRegionProperties cacheProperties;
+
+    @Test
+    void changeMadeByAnotherInstanceIsSeenAfterTtl() throws InterruptedException {
+        long userId = userService.createUser(DtoCreater.makeUserDto("cached@user.com", "cached")).getId();
+        userService.getUserById(userId);
+
+        jdbcTemplate.update("update users set name = ? where id = ?", "changed", userId);
+
+        assertThat(userService.getUserById(userId).getName(), equalTo("cached"));
+        Thread.sleep(cacheProperties.getTtl().toMillis() + 500);
+        assertThat(userService.getUserById(userId).getName(), equalTo("changed"));
+    }
+
+    @Test
+    void itemChangedThroughAnotherInstanceIsUpdatedWithoutConflict() {
+        long userId = userService.createUser(DtoCreater.makeUserDto("owner@cached.com", "owner")).getId();
+        long itemId = itemService.createItem(userId, DtoCreater.makeItemDto("Дрель", "Простая дрель", true, null))
+                .getId();
+        itemService.updateItem(userId, itemId, ItemDto.builder().description("Дрель с чемоданом").build());
+
+        jdbcTemplate.update("update items set name = ?, version = version + 1 where id = ?", "ДрельChanged",
+                itemId);
+        ItemDtoWithOwner updated = itemService.updateItem(userId, itemId, ItemDto.builder()
+                .description("Непростая дрель").build());
+
+        assertThat(updated.getName(), equalTo("ДрельChanged"));
+        assertThat(updated.getDescription(), equalTo("Непростая дрель"));
+    }
+}
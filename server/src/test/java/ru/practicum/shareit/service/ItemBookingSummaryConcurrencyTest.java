@@ -0,0 +1,135 @@
+package ru.practicum.shareit.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.booking.BookingRepository;
+import ru.practicum.shareit.booking.BookingService;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.ItemBookingSummary;
+import ru.practicum.shareit.booking.ItemBookingSummaryRepository;
+import ru.practicum.shareit.booking.ItemBookingSummaryService;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.user.UserService;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * Bookings created at the same time for one item, or while the sweeper refreshes its summary, must all be seen by
+ * the item's booking summary: the last recalculation to commit must not overwrite the summary with one that missed
+ * a concurrent booking.
+ */
+@AutoConfigureTestDatabase
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "shareit.booking-events.relay-interval=3600000",
+        "shareit.booking-summary.sweep-interval=3600000",
+        "shareit.booking-expiry.interval=3600000"})
+public class ItemBookingSummaryConcurrencyTest {
+    private static final int BOOKERS = 8;
+    private static final int ROUNDS = 5;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingRepository bookingRepository;
+
+    @Autowired
+    private ItemBookingSummaryRepository summaryRepository;
+
+    @Autowired
+    private ItemBookingSummaryService summaryService;
+
+    @Test
+    void concurrentBookingsAreAllReflectedInSummary() throws Exception {
+        long ownerId = userService.createUser(DtoCreater.makeUserDto("owner@summary.com", "owner")).getId();
+        List<Long> bookerIds = new ArrayList<>();
+        for (int i = 0; i < BOOKERS; i++) {
+            bookerIds.add(userService.createUser(DtoCreater.makeUserDto("booker" + i + "@summary.com", "booker"))
+                    .getId());
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(BOOKERS);
+        try {
+            for (int round = 0; round < ROUNDS; round++) {
+                long itemId = itemService.createItem(ownerId, DtoCreater.makeItemDto("Дрель", "Простая дрель",
+                        true, null)).getId();
+                LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+                CyclicBarrier barrier = new CyclicBarrier(BOOKERS);
+                List<Future<?>> bookings = new ArrayList<>();
+                for (int i = 0; i < BOOKERS; i++) {
+                    long bookerId = bookerIds.get(i);
+                    LocalDateTime bookingStart = start.plusHours(i);
+                    bookings.add(executor.submit(() -> {
+                        barrier.await();
+                        return bookingService.createBooking(bookerId, DtoCreater.makeBookingDto(bookingStart,
+                                bookingStart.plusMinutes(30), itemId, bookerId, null));
+                    }));
+                }
+                for (Future<?> booking : bookings) {
+                    booking.get(30, TimeUnit.SECONDS);
+                }
+
+                ItemBookingSummary summary = summaryRepository.findById(itemId).orElseThrow();
+
+                assertThat(summary.getNextBookingId(), equalTo(bookingRepository
+                        .findTopByItemIdAndStartDateAfterAndStatusInOrderByStartDateAsc(itemId, LocalDateTime.now(),
+                                List.of(BookingStatus.WAITING)).orElseThrow().getId()));
+                assertThat(summary.getNextStartDate(), equalTo(start));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void bookingCreatedDuringSweepIsReflectedInSummary() throws Exception {
+        long ownerId = userService.createUser(DtoCreater.makeUserDto("owner@sweep.com", "owner")).getId();
+        long bookerId = userService.createUser(DtoCreater.makeUserDto("booker@sweep.com", "booker")).getId();
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            for (int round = 0; round < ROUNDS * 4; round++) {
+                long itemId = itemService.createItem(ownerId, DtoCreater.makeItemDto("Дрель", "Простая дрель",
+                        true, null)).getId();
+                LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+                summaryService.markStale(Set.of(itemId));
+                CyclicBarrier barrier = new CyclicBarrier(2);
+                Future<?> sweep = executor.submit(() -> {
+                    barrier.await();
+                    return summaryService.refreshStaleSummaries(100);
+                });
+                Future<?> booking = executor.submit(() -> {
+                    barrier.await();
+                    return bookingService.createBooking(bookerId, DtoCreater.makeBookingDto(start,
+                            start.plusMinutes(30), itemId, bookerId, null));
+                });
+                sweep.get(30, TimeUnit.SECONDS);
+                booking.get(30, TimeUnit.SECONDS);
+
+                ItemBookingSummary summary = summaryRepository.findById(itemId).orElseThrow();
+
+                assertThat(summary.getNextStartDate(), equalTo(start));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
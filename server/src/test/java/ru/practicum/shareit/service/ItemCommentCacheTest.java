@@ -0,0 +1,127 @@
+package ru.practicum.shareit.service;
+
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.comment.CommentDto;
+import ru.practicum.shareit.comment.ItemCommentCache;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+
+public class ItemCommentCacheTest {
+    private static final Duration TTL = Duration.ofSeconds(5);
+
+    private final AtomicLong clock = new AtomicLong();
+    private final AtomicInteger loads = new AtomicInteger();
+    private final List<CommentDto> stored = new ArrayList<>();
+
+    private List<CommentDto> load() {
+        loads.incrementAndGet();
+        return new ArrayList<>(stored);
+    }
+
+    private CommentDto comment(long id) {
+        return CommentDto.builder().id(id).text("text " + id).authorName("author").build();
+    }
+
+    @Test
+    void getCached() {
+        ItemCommentCache cache = new ItemCommentCache(10, 2, TTL, clock::get);
+        stored.add(comment(1));
+
+        cache.get(1L, this::load);
+        List<CommentDto> comments = cache.get(1L, this::load);
+
+        assertThat(loads.get(), equalTo(1));
+        assertThat(comments, hasSize(1));
+    }
+
+    @Test
+    void prependToCachedList() {
+        ItemCommentCache cache = new ItemCommentCache(10, 2, TTL, clock::get);
+        cache.get(1L, this::load);
+
+        cache.prepend(1L, comment(2));
+        cache.prepend(1L, comment(2));
+        List<CommentDto> comments = cache.get(1L, this::load);
+
+        assertThat(loads.get(), equalTo(1));
+        assertThat(comments, contains(comment(2)));
+    }
+
+    @Test
+    void prependKeepsWindow() {
+        ItemCommentCache cache = new ItemCommentCache(10, 2, TTL, clock::get);
+        stored.add(comment(2));
+        stored.add(comment(1));
+        cache.get(1L, this::load);
+
+        cache.prepend(1L, comment(3));
+        cache.prepend(1L, comment(4));
+        List<CommentDto> comments = cache.get(1L, this::load);
+
+        assertThat(comments, contains(comment(4), comment(3), comment(2)));
+    }
+
+    @Test
+    void evict() {
+        ItemCommentCache cache = new ItemCommentCache(10, 2, TTL, clock::get);
+        cache.get(1L, this::load);
+
+        cache.evict(1L);
+        List<CommentDto> comments = cache.get(1L, this::load);
+
+        assertThat(loads.get(), equalTo(2));
+        assertThat(comments, empty());
+    }
+
+    @Test
+    void getNotCachedWhenCommentAddedWhileLoading() {
+        ItemCommentCache cache = new ItemCommentCache(10, 2, TTL, clock::get);
+
+        cache.get(1L, () -> {
+            cache.prepend(1L, comment(1));
+            return load();
+        });
+        cache.get(1L, this::load);
+
+        assertThat(loads.get(), equalTo(2));
+    }
+
+    @Test
+    void expireAfterTtl() {
+        ItemCommentCache cache = new ItemCommentCache(10, 2, TTL, clock::get);
+        cache.get(1L, this::load);
+
+        clock.addAndGet(TTL.toNanos() - 1);
+        cache.get(1L, this::load);
+        assertThat(loads.get(), equalTo(1));
+
+        clock.incrementAndGet();
+        stored.add(comment(1));
+        List<CommentDto> comments = cache.get(1L, this::load);
+        assertThat(loads.get(), equalTo(2));
+        assertThat(comments, contains(comment(1)));
+    }
+
+    @Test
+    void prependKeepsExpiryOfLoadedList() {
+        ItemCommentCache cache = new ItemCommentCache(10, 2, TTL, clock::get);
+        cache.get(1L, this::load);
+
+        clock.addAndGet(TTL.toNanos() - 1);
+        cache.prepend(1L, comment(1));
+        clock.incrementAndGet();
+        cache.get(1L, this::load);
+
+        assertThat(loads.get(), equalTo(2));
+    }
+}
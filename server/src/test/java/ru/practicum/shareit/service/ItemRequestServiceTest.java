@@ -178,7 +178,7 @@ public class ItemRequestServiceTest {
         requestsDto.forEach(requestDto -> em.persist(ItemRequestMapper.toItemRequest(requestDto, user)));
 
         assertThrows(InvalidUserIdException.class, () -> {
-            service.getItemRequestsByRequestorId(DtoCreater.INVALID_ID);
+            service.getItemRequestsByRequestorId(DtoCreater.INVALID_ID, null, null);
         });
     }
 
@@ -194,7 +194,7 @@ public class ItemRequestServiceTest {
                 DtoCreater.makeItemRequestDto("Хотел бы покататься на коньках", userId, LocalDateTime.now()));
         requestsDto.forEach(requestDto -> em.persist(ItemRequestMapper.toItemRequest(requestDto, user)));
 
-        List<ItemRequestDtoWithItems> requestsGet = service.getItemRequestsByRequestorId(userId);
+        List<ItemRequestDtoWithItems> requestsGet = service.getItemRequestsByRequestorId(userId, null, null);
 
         assertThat(requestsGet, hasSize(requestsDto.size()));
         for (ItemRequestDto requestDto : requestsDto) {
@@ -206,6 +206,33 @@ public class ItemRequestServiceTest {
         }
     }
 
+    @Test
+    void shouldGetItemRequestsByRequestorPageableWithTheirItems() {
+        User user = UserMapper.toUser(DtoCreater.makeUserDto("user@user.com", "user"));
+        em.persist(user);
+        Long userId = user.getId();
+
+        User owner = UserMapper.toUser(DtoCreater.makeUserDto("owner@user.com", "owner"));
+        em.persist(owner);
+
+        List<ItemRequest> requests = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            ItemRequest request = ItemRequestMapper.toItemRequest(DtoCreater.makeItemRequestDto("Хотел бы щётку " + i,
+                    userId, LocalDateTime.now().minusDays(i)), user);
+            em.persist(request);
+            requests.add(request);
+            em.persist(ItemMapper.toItem(DtoCreater.makeItemDto("Щетка " + i, "Простая щетка", true,
+                    request.getId()), owner, request));
+        }
+
+        List<ItemRequestDtoWithItems> requestsGet = service.getItemRequestsByRequestorId(userId, 1, 1);
+
+        assertThat(requestsGet, hasSize(1));
+        assertThat(requestsGet.get(0).getId(), equalTo(requests.get(1).getId()));
+        assertThat(requestsGet.get(0).getItems(), hasSize(1));
+        assertThat(requestsGet.get(0).getItems().get(0).getName(), equalTo("Щетка 1"));
+    }
+
     @Test
     void shouldGetItemRequestsPageable() {
         User user = UserMapper.toUser(DtoCreater.makeUserDto("user@user.com", "user"));
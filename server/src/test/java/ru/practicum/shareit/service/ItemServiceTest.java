@@ -12,6 +12,7 @@ import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.comment.Comment;
 import ru.practicum.shareit.comment.CommentDto;
 import ru.practicum.shareit.comment.CommentMapper;
+import ru.practicum.shareit.comment.CommentPageDto;
 import ru.practicum.shareit.exception.InvalidItemAttrsException;
 import ru.practicum.shareit.exception.InvalidItemIdException;
 import ru.practicum.shareit.exception.InvalidPathVariableException;
@@ -29,6 +30,7 @@ import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserMapper;
 
 import javax.persistence.EntityManager;
+import javax.persistence.OptimisticLockException;
 import javax.persistence.TypedQuery;
 import javax.transaction.Transactional;
 import java.time.LocalDateTime;
@@ -37,6 +39,7 @@ import java.util.stream.Collectors;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.equalToObject;
 import static org.hamcrest.Matchers.hasItem;
@@ -305,6 +308,27 @@ public class ItemServiceTest {
         assertThat(itemUpdated.getUser(), equalTo(user));
     }
 
+    @Test
+    void updateItemModifiedConcurrently() {
+        User user = UserMapper.toUser(DtoCreater.makeUserDto("user@user.com", "user"));
+        em.persist(user);
+        Long userId = user.getId();
+
+        Item item = ItemMapper.toItem(DtoCreater.makeItemDto("Дрель", "Простая дрель", true,
+                null), user);
+        em.persist(item);
+        em.flush();
+        Long itemId = item.getId();
+        em.createNativeQuery("update items set version = version + 1 where id = ?1")
+                .setParameter(1, itemId)
+                .executeUpdate();
+
+        service.updateItem(userId, itemId, DtoCreater.makeItemDto("ДрельUpdated", "Непростая дрель", false,
+                null));
+
+        assertThrows(OptimisticLockException.class, () -> em.flush());
+    }
+
     @Test
     void deleteItem() {
         User user = UserMapper.toUser(DtoCreater.makeUserDto("user@user.com", "user"));
@@ -459,6 +483,35 @@ public class ItemServiceTest {
         });
     }
 
+    @Test
+    void createItemCommentsPermissionDeniedBookingOfOtherItem() {
+        User user = UserMapper.toUser(DtoCreater.makeUserDto("user@user.com", "user"));
+        em.persist(user);
+        Long userId = user.getId();
+
+        User owner = UserMapper.toUser(DtoCreater.makeUserDto("owner@user.com", "user"));
+        em.persist(owner);
+
+        Item item = ItemMapper.toItem(DtoCreater.makeItemDto("Дрель", "Простая дрель", true,
+                null), owner);
+        em.persist(item);
+        Long itemId = item.getId();
+
+        Item otherItem = ItemMapper.toItem(DtoCreater.makeItemDto("Отвертка", "Простая отвертка", true,
+                null), owner);
+        em.persist(otherItem);
+
+        Booking booking = BookingMapper.toBooking(DtoCreater.makeBookingDto(LocalDateTime.now().minusDays(5),
+                LocalDateTime.now().minusDays(1), otherItem.getId(), userId, BookingStatus.APPROVED), user, otherItem);
+        em.persist(booking);
+
+        CommentDto commentDto = DtoCreater.makeCommentDto("Отличная дрель", "user", LocalDateTime.now());
+
+        assertThrows(PermissionDeniedException.class, () -> {
+            service.createComment(userId, itemId, CommentMapper.toComment(commentDto, user, item));
+        });
+    }
+
     @Test
     void createItemCommentsPermissionDeniedNotClosedBooking() {
         User user = UserMapper.toUser(DtoCreater.makeUserDto("user@user.com", "user"));
@@ -635,6 +688,50 @@ public class ItemServiceTest {
         });
     }
 
+    @Test
+    void getCommentsByCursor() {
+        User user = UserMapper.toUser(DtoCreater.makeUserDto("user@user.com", "user"));
+        em.persist(user);
+        Long userId = user.getId();
+
+        Item item = ItemMapper.toItem(DtoCreater.makeItemDto("Дрель", "Простая дрель", true,
+                null), user);
+        em.persist(item);
+        Long itemId = item.getId();
+
+        LocalDateTime created = LocalDateTime.now().minusDays(1);
+        for (int i = 1; i <= 3; i++) {
+            em.persist(CommentMapper.toComment(DtoCreater.makeCommentDto("Комментарий " + i, "user",
+                    created.plusHours(i)), user, item));
+        }
+
+        CommentPageDto firstPage = service.getComments(userId, itemId, null, 2);
+        CommentPageDto secondPage = service.getComments(userId, itemId, firstPage.getNextCursor(), 2);
+
+        assertThat(firstPage.getComments().stream().map(CommentDto::getText).collect(Collectors.toList()),
+                contains("Комментарий 3", "Комментарий 2"));
+        assertThat(firstPage.getNextCursor(), notNullValue());
+        assertThat(secondPage.getComments().stream().map(CommentDto::getText).collect(Collectors.toList()),
+                contains("Комментарий 1"));
+        assertThat(secondPage.getNextCursor(), nullValue());
+    }
+
+    @Test
+    void getCommentsInvalidCursor() {
+        User user = UserMapper.toUser(DtoCreater.makeUserDto("user@user.com", "user"));
+        em.persist(user);
+        Long userId = user.getId();
+
+        Item item = ItemMapper.toItem(DtoCreater.makeItemDto("Дрель", "Простая дрель", true,
+                null), user);
+        em.persist(item);
+        Long itemId = item.getId();
+
+        assertThrows(InvalidPathVariableException.class, () -> {
+            service.getComments(userId, itemId, "cursor", 2);
+        });
+    }
+
     @Test
     void getItemByIdAndUserIdNot() {
         User user = UserMapper.toUser(DtoCreater.makeUserDto("user@user.com", "user"));
@@ -737,6 +834,46 @@ public class ItemServiceTest {
                 hasItem(equalToObject(bookingNext.getEndDate())));
     }
 
+    @Test
+    void getItemsByIds() {
+        User user = UserMapper.toUser(DtoCreater.makeUserDto("user@user.com", "user"));
+        em.persist(user);
+        Long userId = user.getId();
+
+        User owner = UserMapper.toUser(DtoCreater.makeUserDto("owner@user.com", "owner"));
+        em.persist(owner);
+        Long ownerId = owner.getId();
+
+        Item item1 = ItemMapper.toItem(DtoCreater.makeItemDto("Дрель", "Простая дрель", true,
+                null), owner);
+        em.persist(item1);
+        Item item2 = ItemMapper.toItem(DtoCreater.makeItemDto("Отвертка", "Аккумуляторная отвертка",
+                true, null), user);
+        em.persist(item2);
+
+        BookingDto bookingLast = DtoCreater.makeBookingDto(LocalDateTime.now().minusDays(10),
+                LocalDateTime.now().minusDays(6), item1.getId(), userId, BookingStatus.APPROVED);
+        em.persist(BookingMapper.toBooking(bookingLast, user, item1));
+
+        List<Long> ids = List.of(item2.getId(), DtoCreater.INVALID_ID, item1.getId());
+
+        List<ItemDtoWithBookingInfo> ownerItems = service.getItemsByIds(ownerId, ids);
+        List<ItemDtoWithBookingInfo> userItems = service.getItemsByIds(userId, ids);
+
+        assertThat(ownerItems.stream().map(ItemDtoWithBookingInfo::getId).collect(Collectors.toList()),
+                contains(item2.getId(), item1.getId()));
+        assertThat(ownerItems.get(1).getLastBooking(), hasProperty("startDate",
+                equalToObject(bookingLast.getStartDate())));
+        assertThat(userItems.get(1).getLastBooking(), nullValue());
+    }
+
+    @Test
+    void getItemsByIdsInvalidUserId() {
+        assertThrows(InvalidUserIdException.class, () -> {
+            service.getItemsByIds(DtoCreater.INVALID_ID, List.of(1L));
+        });
+    }
+
     @Test
     void getItemsByUserIdInvalidUserId() {
         assertThrows(InvalidUserIdException.class, () -> {
@@ -0,0 +1,105 @@
+package ru.practicum.shareit.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.booking.BookingEventBroker;
+import ru.practicum.shareit.booking.BookingEventService;
+import ru.practicum.shareit.booking.BookingService;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.user.UserService;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+/**
+ * The owner stream is fed from the event log, as it would be for a booking created through another instance.
+ * Both the owner stream and the event stream keep idle subscribers alive with heartbeats.
+ */
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase
+@SpringBootTest(properties = {
+        "shareit.booking-events.relay-interval=3600000",
+        "shareit.booking-events.tail-interval=3600000",
+        "shareit.booking-summary.sweep-interval=3600000",
+        "shareit.booking-expiry.interval=3600000"})
+public class OwnerBookingStreamTest {
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private ItemService itemService;
+
+    @Autowired
+    private BookingService bookingService;
+
+    @Autowired
+    private BookingEventService eventService;
+
+    @Autowired
+    private BookingEventBroker eventBroker;
+
+    @Test
+    void newBookingsFromEventLogArePushedToOwner() throws Exception {
+        long ownerId = userService.createUser(DtoCreater.makeUserDto("owner@stream.com", "owner")).getId();
+        long bookerId = userService.createUser(DtoCreater.makeUserDto("booker@stream.com", "booker")).getId();
+        long itemId = itemService.createItem(ownerId, DtoCreater.makeItemDto("Дрель", "Простая дрель",
+                true, null)).getId();
+        LocalDateTime start = LocalDateTime.now().plusDays(1).truncatedTo(ChronoUnit.SECONDS);
+
+        MockHttpServletResponse stream = mvc.perform(get("/bookings/owner/stream")
+                        .header("X-Sharer-User-Id", ownerId))
+                .andExpect(request().asyncStarted())
+                .andReturn()
+                .getResponse();
+
+        long approvedId = bookingService.createBooking(bookerId, DtoCreater.makeBookingDto(start,
+                start.plusHours(1), itemId, bookerId, null)).getId();
+        bookingService.updateBooking(ownerId, approvedId, true);
+        long waitingId = bookingService.createBooking(bookerId, DtoCreater.makeBookingDto(start.plusDays(1),
+                start.plusDays(1).plusHours(1), itemId, bookerId, null)).getId();
+        eventService.publishPendingEvents(100);
+        assertThat(stream.getContentAsString(), equalTo(""));
+
+        eventBroker.tailEvents();
+
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!stream.getContentAsString().contains("id:" + waitingId + "\n") && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        String events = stream.getContentAsString();
+        // bookings are read when their events are tailed, so one approved meanwhile arrives with its current status
+        assertThat(events.startsWith("id:" + approvedId + "\nevent:APPROVED\n"), equalTo(true));
+        assertThat(events.contains("id:" + waitingId + "\nevent:WAITING\n"), equalTo(true));
+        assertThat(events.split("event:").length - 1, equalTo(2));
+    }
+
+    @Test
+    void eventStreamSubscribersGetHeartbeats() throws Exception {
+        MockHttpServletResponse stream = mvc.perform(get("/bookings/events/stream")
+                        .param("offset", String.valueOf(eventService.getLastOffset())))
+                .andExpect(request().asyncStarted())
+                .andReturn()
+                .getResponse();
+
+        eventBroker.sendHeartbeats();
+
+        long deadline = System.nanoTime() + 5_000_000_000L;
+        while (!stream.getContentAsString().contains(":heartbeat\n") && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(stream.getContentAsString(), equalTo(":heartbeat\n\n"));
+    }
+}
@@ -0,0 +1,64 @@
+package ru.practicum.shareit.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import ru.practicum.shareit.config.PagingPolicy;
+import ru.practicum.shareit.exception.InvalidPathVariableException;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class PagingPolicyTest {
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final PagingPolicy policy = new PagingPolicy(10, 100, meterRegistry);
+
+    private double adjusted(String listing, String reason) {
+        return meterRegistry.counter("shareit.paging.adjusted", "listing", listing, "reason", reason).count();
+    }
+
+    @Test
+    void pageOfRequested() {
+        Pageable page = policy.pageOf("items", 40, 20, Sort.by(Sort.Direction.ASC, "id"));
+
+        assertThat(page.getPageNumber(), equalTo(2));
+        assertThat(page.getPageSize(), equalTo(20));
+        assertThat(page.getSort(), equalTo(Sort.by(Sort.Direction.ASC, "id")));
+        assertThat(meterRegistry.find("shareit.paging.adjusted").counter(), nullValue());
+    }
+
+    @Test
+    void pageOfDefault() {
+        Pageable page = policy.pageOf("items", null, null, Sort.unsorted());
+
+        assertThat(page.getPageNumber(), equalTo(0));
+        assertThat(page.getPageSize(), equalTo(10));
+        assertThat(adjusted("items", "defaulted"), equalTo(1.0));
+    }
+
+    @Test
+    void pageOfClamped() {
+        Pageable page = policy.pageOf("bookings", 1000, 1_000_000, Sort.unsorted());
+
+        assertThat(page.getPageNumber(), equalTo(10));
+        assertThat(page.getPageSize(), equalTo(100));
+        assertThat(adjusted("bookings", "clamped"), equalTo(1.0));
+    }
+
+    @Test
+    void pageOfInvalid() {
+        assertThrows(InvalidPathVariableException.class, () -> policy.pageOf("items", -1, 10, Sort.unsorted()));
+        assertThrows(InvalidPathVariableException.class, () -> policy.pageOf("items", 0, 0, Sort.unsorted()));
+    }
+
+    @Test
+    void limitFallback() {
+        assertThat(policy.limit("comments", null, 5), equalTo(5));
+        assertThat(policy.limit("comments", 500, 5), equalTo(100));
+        assertThat(adjusted("comments", "defaulted"), equalTo(1.0));
+        assertThat(adjusted("comments", "clamped"), equalTo(1.0));
+    }
+}
@@ -0,0 +1,165 @@
+package ru.practicum.shareit.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.config.ReadYourWritesTracker;
+import ru.practicum.shareit.config.ReplicaRoutingDataSource;
+
+import javax.servlet.http.Cookie;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Clock;
+import java.time.Duration;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ReplicaRoutingDataSourceTest {
+    private final Clock clock = mock(Clock.class);
+    private final Connection primaryConnection = mock(Connection.class);
+    private final Connection replicaConnection = mock(Connection.class);
+    private final ReadYourWritesTracker tracker = new ReadYourWritesTracker(clock, Duration.ofSeconds(5));
+    private ReplicaRoutingDataSource dataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        DataSource primary = mock(DataSource.class);
+        DataSource replica = mock(DataSource.class);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        when(clock.millis()).thenReturn(0L);
+        dataSource = new ReplicaRoutingDataSource(primary, replica, tracker);
+        dataSource.afterPropertiesSet();
+        startRequest("GET", null, null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+        tracker.afterCompletion(new MockHttpServletRequest(), new MockHttpServletResponse(), null, null);
+    }
+
+    private MockHttpServletResponse startRequest(String method, Long userId, Long lastWrite) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, "/");
+        if (userId != null) {
+            request.addHeader("X-Sharer-User-Id", userId);
+        }
+        if (lastWrite != null) {
+            request.setCookies(new Cookie(ReadYourWritesTracker.LAST_WRITE_COOKIE, String.valueOf(lastWrite)));
+        }
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        tracker.preHandle(request, response, null);
+        return response;
+    }
+
+    private void completeWrite(long userId) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/");
+        request.addHeader("X-Sharer-User-Id", userId);
+        tracker.preHandle(request, new MockHttpServletResponse(), null);
+        tracker.afterCompletion(request, new MockHttpServletResponse(), null, null);
+    }
+
+    @Test
+    void getConnectionForWriteFromPrimary() throws SQLException {
+        assertThat(dataSource.getConnection(), sameInstance(primaryConnection));
+    }
+
+    @Test
+    void writeRequestSetsLastWriteCookie() {
+        when(clock.millis()).thenReturn(1_000L);
+
+        MockHttpServletResponse response = startRequest("POST", 1L, null);
+
+        assertThat(response.getCookie(ReadYourWritesTracker.LAST_WRITE_COOKIE).getValue(), equalTo("1000"));
+        assertThat(response.getHeader("Set-Cookie"), containsString("Max-Age=5"));
+    }
+
+    @Test
+    void getConnectionForReadFromReplica() throws SQLException {
+        MockHttpServletResponse response = startRequest("GET", 1L, null);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertThat(dataSource.getConnection(), sameInstance(replicaConnection));
+        assertThat(response.getCookie(ReadYourWritesTracker.LAST_WRITE_COOKIE), nullValue());
+    }
+
+    @Test
+    void getConnectionForReadInWriteRequestFromPrimary() throws SQLException {
+        startRequest("PATCH", 1L, null);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertThat(dataSource.getConnection(), sameInstance(primaryConnection));
+    }
+
+    @Test
+    void getConnectionForReadWithLastWriteCookieFromPrimaryWithinLag() throws SQLException {
+        when(clock.millis()).thenReturn(5_999L);
+        startRequest("GET", null, 1_000L);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertThat(dataSource.getConnection(), sameInstance(primaryConnection));
+
+        startRequest("GET", null, null);
+        assertThat(dataSource.getConnection(), sameInstance(replicaConnection));
+    }
+
+    @Test
+    void getConnectionForReadWithLastWriteCookieFromReplicaAfterLag() throws SQLException {
+        when(clock.millis()).thenReturn(6_000L);
+        startRequest("GET", null, 1_000L);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertThat(dataSource.getConnection(), sameInstance(replicaConnection));
+    }
+
+    @Test
+    void getConnectionForReadWithLastWriteCookieInFutureClampedToNow() throws SQLException {
+        when(clock.millis()).thenReturn(1_000L);
+        startRequest("GET", null, Long.MAX_VALUE);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        assertThat(dataSource.getConnection(), sameInstance(primaryConnection));
+
+        when(clock.millis()).thenReturn(6_000L);
+        startRequest("GET", null, Long.MAX_VALUE);
+        assertThat(dataSource.getConnection(), sameInstance(primaryConnection));
+        when(clock.millis()).thenReturn(11_000L);
+        assertThat(dataSource.getConnection(), sameInstance(replicaConnection));
+    }
+
+    @Test
+    void getConnectionForReadOfUserWhoWroteFromPrimaryWithoutCookie() throws SQLException {
+        when(clock.millis()).thenReturn(1_000L);
+        completeWrite(1L);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+
+        when(clock.millis()).thenReturn(5_999L);
+        startRequest("GET", 1L, null);
+        assertThat(dataSource.getConnection(), sameInstance(primaryConnection));
+        startRequest("GET", 2L, null);
+        assertThat(dataSource.getConnection(), sameInstance(replicaConnection));
+
+        when(clock.millis()).thenReturn(6_000L);
+        startRequest("GET", 1L, null);
+        assertThat(dataSource.getConnection(), sameInstance(replicaConnection));
+    }
+
+    @Test
+    void getConnectionOutsideRequest() throws SQLException {
+        tracker.afterCompletion(new MockHttpServletRequest(), new MockHttpServletResponse(), null, null);
+
+        assertThat(dataSource.getConnection(), sameInstance(primaryConnection));
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(true);
+        assertThat(dataSource.getConnection(), sameInstance(replicaConnection));
+    }
+}
@@ -0,0 +1,127 @@
+package ru.practicum.shareit.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.practicum.shareit.config.ReadYourWritesTracker;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.user.UserDto;
+
+import javax.servlet.http.Cookie;
+import javax.sql.DataSource;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Primary and replica are two separate H2 databases without replication between them, so a row written
+ * through the API can only be read back when the read is routed to the primary.
+ */
+@AutoConfigureMockMvc
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "shareit.datasource.replica.url=jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1",
+        "shareit.datasource.replica.driver-class-name=org.h2.Driver",
+        "shareit.datasource.replica.username=sa",
+        "shareit.datasource.replica.password=",
+        "shareit.datasource.replica.max-lag=5s",
+        // the second-level cache would answer reads of a just written user without asking either database
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false",
+        "shareit.booking-events.relay-interval=3600000",
+        "shareit.booking-summary.sweep-interval=3600000",
+        "shareit.booking-expiry.interval=3600000"})
+public class ReplicaRoutingTest {
+    @Autowired
+    private MockMvc mvc;
+
+    @Autowired
+    private ObjectMapper mapper;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replica;
+
+    @BeforeEach
+    void createReplicaSchema() {
+        new ResourceDatabasePopulator(new ClassPathResource("schema.sql")).execute(replica);
+    }
+
+    private MockHttpServletResponse createUser(String email) throws Exception {
+        MockHttpServletResponse response = mvc.perform(post("/users")
+                        .content(mapper.writeValueAsString(DtoCreater.makeUserDto(email, "user")))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse();
+        assertThat(response.getCookie(ReadYourWritesTracker.LAST_WRITE_COOKIE), notNullValue());
+        return response;
+    }
+
+    private long userId(MockHttpServletResponse response) throws Exception {
+        return mapper.readValue(response.getContentAsString(), UserDto.class).getId();
+    }
+
+    @Test
+    void readAfterCreateWithLastWriteCookieFromPrimary() throws Exception {
+        MockHttpServletResponse created = createUser("primary@user.com");
+
+        mvc.perform(get("/users/{userId}", userId(created))
+                        .cookie(created.getCookie(ReadYourWritesTracker.LAST_WRITE_COOKIE)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.email", is("primary@user.com")));
+    }
+
+    @Test
+    void readWithoutLastWriteCookieFromReplica() throws Exception {
+        MockHttpServletResponse created = createUser("replica@user.com");
+
+        mvc.perform(get("/users/{userId}", userId(created)))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void readWithLastWriteCookieOlderThanLagFromReplica() throws Exception {
+        MockHttpServletResponse created = createUser("lagged@user.com");
+
+        mvc.perform(get("/users/{userId}", userId(created))
+                        .cookie(new Cookie(ReadYourWritesTracker.LAST_WRITE_COOKIE,
+                                String.valueOf(System.currentTimeMillis() - 5_000))))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    void readOfUserWhoWroteWithoutCookieFromPrimary() throws Exception {
+        long ownerId = userId(createUser("owner@user.com"));
+        MockHttpServletResponse created = mvc.perform(post("/items")
+                        .header("X-Sharer-User-Id", ownerId)
+                        .content(mapper.writeValueAsString(DtoCreater.makeItemDto("Дрель", "Простая дрель",
+                                true, null)))
+                        .contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse();
+        long itemId = mapper.readValue(created.getContentAsString(), ItemDto.class).getId();
+
+        mvc.perform(get("/items/{itemId}", itemId).header("X-Sharer-User-Id", ownerId))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name", is("Дрель")));
+    }
+}
@@ -0,0 +1,111 @@
+package ru.practicum.shareit.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.SseSender;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.equalTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+public class SseSenderTest {
+    private static final Duration SEND_TIMEOUT = Duration.ofSeconds(10);
+
+    private final AtomicLong clock = new AtomicLong();
+    private final SseSender sender = new SseSender(2, SEND_TIMEOUT, clock::get);
+    private final List<SseSender.Channel> dropped = new CopyOnWriteArrayList<>();
+
+    @AfterEach
+    void close() {
+        sender.close();
+    }
+
+    @Test
+    void writesOfChannelRunInOrder() throws InterruptedException {
+        SseSender.Channel channel = sender.open(mock(SseEmitter.class), dropped::add);
+        List<Integer> written = new CopyOnWriteArrayList<>();
+        CountDownLatch done = new CountDownLatch(100);
+
+        for (int i = 0; i < 100; i++) {
+            int event = i;
+            channel.send(emitter -> {
+                written.add(event);
+                done.countDown();
+            });
+        }
+
+        assertThat(done.await(5, TimeUnit.SECONDS), equalTo(true));
+        for (int i = 0; i < written.size(); i++) {
+            assertThat(written.get(i), equalTo(i));
+        }
+        assertThat(dropped, empty());
+    }
+
+    @Test
+    void failedWriteDropsChannel() {
+        SseEmitter emitter = mock(SseEmitter.class);
+        SseSender.Channel channel = sender.open(emitter, dropped::add);
+        IOException failure = new IOException("Broken pipe");
+
+        channel.send(e -> {
+            throw failure;
+        });
+
+        verify(emitter, timeout(5000)).completeWithError(failure);
+        assertThat(dropped, contains(channel));
+    }
+
+    @Test
+    void stalledWriteDropsOnlyItsChannel() throws InterruptedException {
+        SseEmitter stalledEmitter = mock(SseEmitter.class);
+        SseSender.Channel stalled = sender.open(stalledEmitter, dropped::add);
+        SseSender.Channel healthy = sender.open(mock(SseEmitter.class), dropped::add);
+        CountDownLatch writeStarted = new CountDownLatch(1);
+        CountDownLatch releaseWrite = new CountDownLatch(1);
+        CountDownLatch healthyWritten = new CountDownLatch(1);
+        stalled.send(emitter -> {
+            writeStarted.countDown();
+            try {
+                releaseWrite.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        assertThat(writeStarted.await(5, TimeUnit.SECONDS), equalTo(true));
+
+        clock.addAndGet(SEND_TIMEOUT.toNanos());
+        sender.dropStalledChannels();
+        assertThat(dropped, empty());
+
+        clock.incrementAndGet();
+        sender.dropStalledChannels();
+        assertThat(dropped, contains(stalled));
+
+        healthy.send(emitter -> healthyWritten.countDown());
+        assertThat(healthyWritten.await(5, TimeUnit.SECONDS), equalTo(true));
+        stalled.send(emitter -> {
+            throw new IllegalStateException("must not be written");
+        });
+        verify(stalledEmitter, never()).complete();
+
+        releaseWrite.countDown();
+        verify(stalledEmitter, timeout(5000)).complete();
+        verify(stalledEmitter, never()).completeWithError(any());
+        assertThat(dropped, contains(stalled));
+    }
+}
@@ -0,0 +1,174 @@
+package ru.practicum.shareit.service;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.practicum.shareit.booking.Booking;
+import ru.practicum.shareit.booking.BookingMapper;
+import ru.practicum.shareit.booking.BookingService;
+import ru.practicum.shareit.booking.BookingStatus;
+import ru.practicum.shareit.booking.ItemBookingSummaryService;
+import ru.practicum.shareit.booking.dto.BookingDtoWithItemAndBooker;
+import ru.practicum.shareit.item.Item;
+import ru.practicum.shareit.item.ItemMapper;
+import ru.practicum.shareit.item.ItemService;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.user.User;
+import ru.practicum.shareit.user.UserMapper;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.transaction.Transactional;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
+
+/**
+ * Number of SQL statements per endpoint must not depend on how many rows the endpoint renders:
+ * associations are lazy and each view fetches what it renders in its own query.
+ * Statistics are counted per session factory, so background jobs are held off.
+ */
+@Transactional
+@AutoConfigureTestDatabase
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.NONE, properties = {
+        "shareit.booking-events.relay-interval=3600000",
+        "shareit.booking-summary.sweep-interval=3600000",
+        "shareit.booking-expiry.interval=3600000"})
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class StatementCountTest {
+    private static final int BOOKINGS = 5;
+
+    private final EntityManager em;
+    private final EntityManagerFactory emf;
+    private final BookingService bookingService;
+    private final ItemService itemService;
+    private final ItemBookingSummaryService summaryService;
+
+    private User owner;
+    private final List<Item> items = new ArrayList<>();
+    private final List<Booking> bookings = new ArrayList<>();
+
+    @BeforeEach
+    void createBookings() {
+        owner = UserMapper.toUser(DtoCreater.makeUserDto("owner@user.com", "owner"));
+        em.persist(owner);
+        for (int i = 0; i < BOOKINGS; i++) {
+            User booker = UserMapper.toUser(DtoCreater.makeUserDto("booker" + i + "@user.com", "booker" + i));
+            em.persist(booker);
+            Item item = ItemMapper.toItem(DtoCreater.makeItemDto("Дрель " + i, "Простая дрель", true, null),
+                    owner);
+            em.persist(item);
+            items.add(item);
+            Booking booking = BookingMapper.toBooking(DtoCreater.makeBookingDto(LocalDateTime.now().plusDays(i + 1),
+                    LocalDateTime.now().plusDays(i + 2), item.getId(), booker.getId(), BookingStatus.WAITING),
+                    booker, item);
+            em.persist(booking);
+            bookings.add(booking);
+        }
+        em.flush();
+        items.forEach(item -> summaryService.refreshSummary(item.getId()));
+        em.flush();
+    }
+
+    private long statements(Runnable call) {
+        em.clear();
+        SessionFactory sessionFactory = emf.unwrap(SessionFactory.class);
+        sessionFactory.getCache().evictAllRegions();
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.clear();
+        call.run();
+        em.flush();
+        return statistics.getPrepareStatementCount();
+    }
+
+    @Test
+    void getBookingById() {
+        Booking booking = bookings.get(0);
+
+        long count = statements(() -> {
+            BookingDtoWithItemAndBooker found = bookingService.getBookingById(owner.getId(), booking.getId());
+            assertThat(found.getItem().getUser().getName(), equalTo(owner.getName()));
+            assertThat(found.getUser().getName(), equalTo("booker0"));
+        });
+
+        assertThat(count, lessThanOrEqualTo(2L));
+    }
+
+    @Test
+    void getBookingsByBooker() {
+        long bookerId = bookings.get(0).getUser().getId();
+
+        long count = statements(() -> assertThat(bookingService.getBookingByState(bookerId, "ALL", 0, 10),
+                hasSize(1)));
+
+        assertThat(count, lessThanOrEqualTo(2L));
+    }
+
+    @Test
+    void getBookingsByOwner() {
+        long count = statements(() -> {
+            List<BookingDtoWithItemAndBooker> found = bookingService.getBookingsByOwnerAndState(owner.getId(), "ALL", 0, 10);
+            assertThat(found, hasSize(BOOKINGS));
+            assertThat(found.stream().map(booking -> booking.getUser().getName()).distinct()
+                    .collect(Collectors.toList()), hasSize(BOOKINGS));
+        });
+
+        assertThat(count, lessThanOrEqualTo(2L));
+    }
+
+    @Test
+    void updateBooking() {
+        Booking booking = bookings.get(0);
+
+        long count = statements(() -> bookingService.updateBooking(owner.getId(), booking.getId(), true));
+
+        assertThat(count, lessThanOrEqualTo(8L));
+    }
+
+    @Test
+    void updateItem() {
+        Item item = items.get(0);
+
+        long count = statements(() -> itemService.updateItem(owner.getId(), item.getId(),
+                ItemDto.builder().name("Дрель 2").build()));
+
+        assertThat(count, lessThanOrEqualTo(3L));
+    }
+
+    @Test
+    void getItemsByOwner() {
+        long count = statements(() -> assertThat(itemService.getItemsByUserId(owner.getId(), 0, 10),
+                hasSize(BOOKINGS)));
+
+        assertThat(count, lessThanOrEqualTo(3L));
+    }
+
+    @Test
+    void getItemsByIds() {
+        List<Long> ids = items.stream().map(Item::getId).collect(Collectors.toList());
+
+        long count = statements(() -> assertThat(itemService.getItemsByIds(owner.getId(), ids), hasSize(BOOKINGS)));
+
+        assertThat(count, lessThanOrEqualTo(3L));
+    }
+
+    @Test
+    void getItemById() {
+        Item item = items.get(0);
+
+        long count = statements(() -> itemService.getItemByIdWithCommentsAndBookingInfo(owner.getId(), item.getId()));
+
+        assertThat(count, lessThanOrEqualTo(4L));
+    }
+}
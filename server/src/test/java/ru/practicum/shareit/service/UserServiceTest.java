@@ -6,6 +6,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.context.SpringBootTest;
 import ru.practicum.shareit.exception.InvalidEmailException;
+import ru.practicum.shareit.exception.InvalidPathVariableException;
 import ru.practicum.shareit.exception.InvalidUserIdException;
 import ru.practicum.shareit.user.User;
 import ru.practicum.shareit.user.UserDto;
@@ -16,9 +17,12 @@ import javax.persistence.EntityManager;
 import javax.persistence.TypedQuery;
 import javax.transaction.Transactional;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasProperty;
@@ -168,6 +172,20 @@ public class UserServiceTest {
         });
     }
 
+    @Test
+    void getUsersPageable() {
+        List<UserDto> usersDto = List.of(
+                makeUserDto("user1@email", "user1"),
+                makeUserDto("user2@email", "user2"),
+                makeUserDto("user3@email", "user3"));
+
+        usersDto.forEach(userDto -> em.persist(UserMapper.toUser(userDto)));
+
+        List<User> usersGet = service.getUsers(1, 1);
+
+        assertThat(usersGet, contains(hasProperty("name", equalTo("user2"))));
+    }
+
     @Test
     void getAllUsers() {
         List<UserDto> usersDto = List.of(
@@ -177,7 +195,7 @@ public class UserServiceTest {
 
         usersDto.forEach(userDto -> em.persist(UserMapper.toUser(userDto)));
 
-        List<User> usersGet = service.getUsers();
+        List<User> usersGet = service.getUsers(null, null);
 
         assertThat(usersGet, hasSize(usersDto.size()));
         for (UserDto userDto : usersDto) {
@@ -187,4 +205,25 @@ public class UserServiceTest {
                     hasProperty("email", equalTo(userDto.getEmail())))));
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void getUsersByIds() {
+        User user1 = UserMapper.toUser(makeUserDto("user1@email", "user1"));
+        em.persist(user1);
+        User user2 = UserMapper.toUser(makeUserDto("user2@email", "user2"));
+        em.persist(user2);
+
+        List<User> usersGet = service.getUsersByIds(List.of(user2.getId(), DtoCreater.INVALID_ID, user1.getId(),
+                user2.getId()));
+
+        assertThat(usersGet.stream().map(User::getId).collect(Collectors.toList()),
+                contains(user2.getId(), user1.getId()));
+    }
+
+    @Test
+    void getUsersByIdsTooMany() {
+        List<Long> ids = LongStream.rangeClosed(1, 101).boxed().collect(Collectors.toList());
+
+        assertThrows(InvalidPathVariableException.class, () -> service.getUsersByIds(ids));
+    }
+}